@@ -0,0 +1,98 @@
+package de.rwth_aachen.dc.lbd;
+
+import javax.vecmath.Point3d;
+
+import org.bimserver.geometry.Matrix;
+
+/**
+ * Compares the earlier per-index bounding box computation (a general 4x4
+ * multiplication and three allocations per index) with BoundsKernel, for a
+ * rotated and for a translated placement. The mesh is a grid of triangles with
+ * shared vertices, like the IfcOpenShell output. The grid side length can be
+ * given as the first argument.
+ */
+public class Benchmark_BoundsKernel {
+	private static final int WARMUP_ROUNDS = 20;
+	private static final int ROUNDS = 50;
+
+	private interface Bounds {
+		double[] run(float[] positions, int[] indices, double[] m);
+	}
+
+	private static double[] time(String name, float[] positions, int[] indices, double[] m, Bounds bounds) {
+		double[] b = null;
+		for (int i = 0; i < WARMUP_ROUNDS; i++)
+			b = bounds.run(positions, indices, m);
+		long start = System.nanoTime();
+		for (int i = 0; i < ROUNDS; i++)
+			b = bounds.run(positions, indices, m);
+		long ns = (System.nanoTime() - start) / ROUNDS;
+		System.out.println(String.format("%s: %.3f ms per mesh, %.2f ns per vertex", name, ns / 1e6,
+				(double) ns / (positions.length / 3)));
+		return b;
+	}
+
+	// The computation IFCBoundingBoxes used before BoundsKernel
+	private static double[] legacy(float[] positions, int[] indices, double[] m) {
+		BoundingBox boundingBox = new BoundingBox();
+		for (int i = 0; i < indices.length; i++) {
+			int index = indices[i] * 3;
+			double[] result = new double[4];
+			Matrix.multiplyMV(result, 0, m, 0,
+					new double[] { positions[index], positions[index + 1], positions[index + 2], 1 }, 0);
+			boundingBox.add(new Point3d(result[0], result[1], result[2]));
+		}
+		Point3d min = boundingBox.getMin();
+		Point3d max = boundingBox.getMax();
+		return new double[] { min.x, min.y, min.z, max.x, max.y, max.z };
+	}
+
+	private static double[] kernel(float[] positions, int[] indices, double[] m) {
+		BoundsKernel kernel = new BoundsKernel();
+		kernel.add(positions, m);
+		return kernel.toArray();
+	}
+
+	private static void compare(double[] a, double[] b) {
+		for (int i = 0; i < 6; i++)
+			if (Math.abs(a[i] - b[i]) > 1e-9 * Math.max(1, Math.abs(a[i])))
+				throw new IllegalStateException("Different box: " + java.util.Arrays.toString(a) + " "
+						+ java.util.Arrays.toString(b));
+	}
+
+	public static void main(String[] args) {
+		int side = args.length > 0 ? Integer.parseInt(args[0]) : 300;
+		float[] positions = new float[side * side * 3];
+		for (int y = 0, p = 0; y < side; y++)
+			for (int x = 0; x < side; x++) {
+				positions[p++] = x * 0.01f;
+				positions[p++] = y * 0.01f;
+				positions[p++] = (float) Math.sin(x * 0.1) * (float) Math.cos(y * 0.1);
+			}
+		int[] indices = new int[(side - 1) * (side - 1) * 6];
+		for (int y = 0, i = 0; y < side - 1; y++)
+			for (int x = 0; x < side - 1; x++) {
+				int v = y * side + x;
+				indices[i++] = v;
+				indices[i++] = v + 1;
+				indices[i++] = v + side;
+				indices[i++] = v + 1;
+				indices[i++] = v + side + 1;
+				indices[i++] = v + side;
+			}
+		System.out.println(String.format("%d vertices, %d indices", positions.length / 3, indices.length));
+
+		double[] rotated = new double[16];
+		Matrix.setIdentityM(rotated, 0);
+		Matrix.rotateM(rotated, 0, 30, 0, 0, 1);
+		Matrix.translateM(rotated, 0, 12.5, -3, 4);
+		double[] translated = new double[16];
+		Matrix.setIdentityM(translated, 0);
+		Matrix.translateM(translated, 0, 12.5, -3, 4);
+
+		compare(time("rotated, legacy", positions, indices, rotated, Benchmark_BoundsKernel::legacy),
+				time("rotated, kernel", positions, indices, rotated, Benchmark_BoundsKernel::kernel));
+		compare(time("translated, legacy", positions, indices, translated, Benchmark_BoundsKernel::legacy),
+				time("translated, kernel", positions, indices, translated, Benchmark_BoundsKernel::kernel));
+	}
+}
@@ -0,0 +1,99 @@
+package de.rwth_aachen.dc.lbd;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import org.ifcopenshell.IfcGeomServerClient;
+import org.ifcopenshell.IfcGeomServerClientEntity;
+import org.ifcopenshell.IfcGeomServerPool;
+import org.ifcopenshell.IfcGeomServerSettings;
+import org.ifcopenshell.IfcGeomServerStandIn;
+import org.ifcopenshell.IfcOpenShellEngine;
+
+/**
+ * Measures the client side of the geometry conversion against
+ * IfcGeomServerStandIn, so that no IfcGeomServer binary or real model is
+ * needed: the decoding throughput of IfcGeomServerClient, the streaming of
+ * IFCBoundingBoxes through the pool, and how long the pool takes to give up
+ * on a process that does not answer. The arguments are the number of
+ * entities, the vertices per entity and the number of conversions.
+ */
+public class Benchmark_IfcGeomServerStandIn {
+	private static final long TIMEOUT_MS = 2000;
+
+	private static long usedHeap() {
+		Runtime r = Runtime.getRuntime();
+		System.gc();
+		return r.totalMemory() - r.freeMemory();
+	}
+
+	public static void main(String[] args) throws Exception {
+		int entities = args.length > 0 ? Integer.parseInt(args[0]) : 20000;
+		int vertices = args.length > 1 ? Integer.parseInt(args[1]) : 400;
+		int conversions = args.length > 2 ? Integer.parseInt(args[2]) : 5;
+		Path directory = Files.createTempDirectory("ifcgeomserver-standin");
+		Path launcher = IfcGeomServerStandIn.createLauncher(directory, "--entities", String.valueOf(entities),
+				"--vertices", String.valueOf(vertices), "--rotated");
+		byte[] model = "ISO-10303-21;\nEND-ISO-10303-21;\n".getBytes(StandardCharsets.US_ASCII);
+		File ifcFile = directory.resolve("model.ifc").toFile();
+		Files.write(ifcFile.toPath(), model);
+
+		// The client alone
+		try (IfcGeomServerClient client = new IfcGeomServerClient(launcher)) {
+			client.setSettings(IfcGeomServerSettings.boundingBoxes());
+			client.setReadMeshAttributes(false);
+			long start = System.nanoTime();
+			client.loadModel(new ByteArrayInputStream(model), model.length);
+			long first = System.nanoTime();
+			int count = 0;
+			long floats = 0;
+			while (client.hasNext()) {
+				IfcGeomServerClientEntity e = client.getNext();
+				if (e == null)
+					break;
+				count++;
+				floats += e.getPositions().length;
+			}
+			long end = System.nanoTime();
+			System.out.println(String.format("Client: start and load %.1f ms, %d entities in %.1f ms, %.0f entities/s, %.1f MB of positions/s",
+					(first - start) / 1e6, count, (end - first) / 1e6, count / ((end - first) / 1e9),
+					floats * 4 / 1e6 / ((end - first) / 1e9)));
+		}
+
+		// IFCBoundingBoxes through the pool
+		IFCBoundingBoxes.setCache(null);
+		IFCBoundingBoxes.setServerExecutable(launcher);
+		IFCBoundingBoxes.configureServerPool(1, conversions, TIMEOUT_MS * 100);
+		IFCBoundingBoxes.warmUp();
+		long heap = usedHeap();
+		for (int i = 0; i < conversions; i++) {
+			long start = System.nanoTime();
+			IFCBoundingBoxes boxes = new IFCBoundingBoxes(ifcFile);
+			long end = System.nanoTime();
+			if (boxes.getBoundingBox("0000000000000000000000") == null)
+				throw new IllegalStateException("No box for the first entity");
+			System.out.println(String.format("IFCBoundingBoxes %d: %.1f ms, heap +%.1f MB", i + 1, (end - start) / 1e6,
+					(usedHeap() - heap) / 1e6));
+		}
+
+		// A process that does not answer is killed after the timeout
+		Path hanging = IfcGeomServerStandIn.createLauncher(directory, "--hang");
+		try (IfcGeomServerPool pool = new IfcGeomServerPool(hanging, 1, 1, TIMEOUT_MS,
+				IfcGeomServerSettings.boundingBoxes())) {
+			IfcOpenShellEngine engine = new IfcOpenShellEngine(pool);
+			long start = System.nanoTime();
+			try {
+				engine.openModel(new ByteArrayInputStream(model), model.length).release();
+				System.out.println("The hanging process answered");
+			} catch (Exception e) {
+				System.out.println("Hanging process: " + e.getMessage());
+			}
+			System.out.println(String.format("Timeout %d ms, gave up after %.0f ms", TIMEOUT_MS,
+					(System.nanoTime() - start) / 1e6));
+		}
+		IFCBoundingBoxes.setServerExecutable(null);
+	}
+}
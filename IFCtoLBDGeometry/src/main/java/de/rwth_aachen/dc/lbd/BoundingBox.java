@@ -11,6 +11,14 @@ public class BoundingBox {
         this.max = new Point3d(Float.NEGATIVE_INFINITY, Float.NEGATIVE_INFINITY, Float.NEGATIVE_INFINITY);
     }
 
+    /**
+     * @param bounds min x, y, z followed by max x, y, z
+     */
+    public BoundingBox(double[] bounds) {
+        this.min = new Point3d(bounds[0], bounds[1], bounds[2]);
+        this.max = new Point3d(bounds[3], bounds[4], bounds[5]);
+    }
+
     public void add(Point3d point) {
         if (point.x < min.x)
             min.x = point.x;
@@ -0,0 +1,226 @@
+package de.rwth_aachen.dc.lbd;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.BufferUnderflowException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.FileTime;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/*
+ *  Copyright (c) 2020 Jyrki Oraskari (Jyrki.Oraskari@gmail.f)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+/**
+ * An on-disk store of the bounding boxes of the converted models. There is one
+ * file per model, named by the SHA-256 of the IFC file, the file format version
+ * and what else the boxes depend on, with the GUID and the six doubles of each
+ * box. A file is written once to a temporary name and moved in place, and it is
+ * read memory-mapped.
+ *
+ * The directory is created readable by the owner only, where the file system
+ * supports it. Each store removes the files older than max_age_days and then
+ * the oldest files beyond max_files.
+ */
+public class BoundingBoxCache {
+	private static final int MAGIC = 0x42425831; // "BBX1"
+	// Part of the key, so that a new layout or box computation does not read old files
+	private static final String FORMAT_VERSION = "BBX1";
+	private static final String SUFFIX = ".bbox";
+
+	public static final int DEFAULT_MAX_FILES = 200;
+	public static final int DEFAULT_MAX_AGE_DAYS = 30;
+
+	private final Path directory;
+	private final int max_files;
+	private final long max_age_ms;
+
+	public BoundingBoxCache(Path directory) {
+		this(directory, DEFAULT_MAX_FILES, DEFAULT_MAX_AGE_DAYS);
+	}
+
+	/**
+	 * @param directory    where the files are kept
+	 * @param max_files    the number of models kept
+	 * @param max_age_days the days a file is kept after it was written
+	 */
+	public BoundingBoxCache(Path directory, int max_files, int max_age_days) {
+		if (max_files < 1 || max_age_days < 1)
+			throw new IllegalArgumentException("The file count and the age must be positive");
+		this.directory = directory;
+		this.max_files = max_files;
+		this.max_age_ms = TimeUnit.DAYS.toMillis(max_age_days);
+	}
+
+	/**
+	 * @return a cache in .ifc2lbd/bbox-cache in the home directory of the user
+	 */
+	public static BoundingBoxCache inUserHome() {
+		return new BoundingBoxCache(Paths.get(System.getProperty("user.home"), ".ifc2lbd", "bbox-cache"));
+	}
+
+	public Path getDirectory() {
+		return directory;
+	}
+
+	/**
+	 * @param ifcFile  the IFC model
+	 * @param settings what else the boxes depend on, e.g. the geometry server
+	 *                 settings
+	 * @return the hex SHA-256 of the file content and the settings
+	 */
+	public static String key(File ifcFile, String settings) throws IOException {
+		MessageDigest digest;
+		try {
+			digest = MessageDigest.getInstance("SHA-256");
+		} catch (NoSuchAlgorithmException e) {
+			throw new IOException(e);
+		}
+		byte[] buffer = new byte[1 << 16];
+		try (InputStream in = Files.newInputStream(ifcFile.toPath())) {
+			int n;
+			while ((n = in.read(buffer)) > 0)
+				digest.update(buffer, 0, n);
+		}
+		digest.update(FORMAT_VERSION.getBytes(StandardCharsets.UTF_8));
+		digest.update(settings.getBytes(StandardCharsets.UTF_8));
+		StringBuilder sb = new StringBuilder();
+		for (byte b : digest.digest())
+			sb.append(String.format("%02x", b));
+		return sb.toString();
+	}
+
+	/**
+	 * @return GUID to min x, y, z, max x, y, z, or null if the model has not
+	 *         been stored or the file cannot be read
+	 */
+	public Map<String, double[]> load(String key) {
+		Path file = directory.resolve(key + SUFFIX);
+		if (!Files.isRegularFile(file))
+			return null;
+		try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+			MappedByteBuffer b = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+			if (b.getInt() != MAGIC)
+				return null;
+			int count = b.getInt();
+			Map<String, double[]> bounds = new HashMap<>(count * 2);
+			byte[] guid = new byte[64];
+			for (int i = 0; i < count; i++) {
+				int len = b.getShort() & 0xffff;
+				if (len > guid.length)
+					guid = new byte[len];
+				b.get(guid, 0, len);
+				double[] box = new double[6];
+				for (int j = 0; j < 6; j++)
+					box[j] = b.getDouble();
+				bounds.put(new String(guid, 0, len, StandardCharsets.UTF_8), box);
+			}
+			return bounds;
+		} catch (IOException | BufferUnderflowException | IllegalArgumentException e) {
+			e.printStackTrace();
+			return null;
+		}
+	}
+
+	public void store(String key, Map<String, double[]> bounds) {
+		try {
+			createDirectory();
+			Path tmp = Files.createTempFile(directory, key, ".tmp");
+			try {
+				try (DataOutputStream out = new DataOutputStream(
+						new BufferedOutputStream(Files.newOutputStream(tmp)))) {
+					out.writeInt(MAGIC);
+					out.writeInt(bounds.size());
+					for (Map.Entry<String, double[]> e : bounds.entrySet()) {
+						byte[] guid = e.getKey().getBytes(StandardCharsets.UTF_8);
+						out.writeShort(guid.length);
+						out.write(guid);
+						for (double d : e.getValue())
+							out.writeDouble(d);
+					}
+				}
+				Files.move(tmp, directory.resolve(key + SUFFIX), StandardCopyOption.REPLACE_EXISTING,
+						StandardCopyOption.ATOMIC_MOVE);
+			} finally {
+				Files.deleteIfExists(tmp);
+			}
+			evict();
+		} catch (IOException e) {
+			e.printStackTrace();
+		}
+	}
+
+	private void createDirectory() throws IOException {
+		if (Files.isDirectory(directory))
+			return;
+		if (directory.getFileSystem().supportedFileAttributeViews().contains("posix"))
+			Files.createDirectories(directory,
+					PosixFilePermissions.asFileAttribute(PosixFilePermissions.fromString("rwx------")));
+		else
+			Files.createDirectories(directory);
+	}
+
+	/**
+	 * Removes the files older than the maximum age, then the oldest ones beyond
+	 * the maximum count.
+	 */
+	private void evict() throws IOException {
+		List<Path> files;
+		try (Stream<Path> list = Files.list(directory)) {
+			files = list.filter(f -> f.getFileName().toString().endsWith(SUFFIX)).collect(Collectors.toList());
+		}
+		long oldest_kept = System.currentTimeMillis() - max_age_ms;
+		List<Path> kept = new ArrayList<>();
+		Map<Path, FileTime> times = new HashMap<>();
+		for (Path f : files) {
+			try {
+				FileTime t = Files.getLastModifiedTime(f);
+				if (t.toMillis() < oldest_kept) {
+					Files.deleteIfExists(f);
+				} else {
+					times.put(f, t);
+					kept.add(f);
+				}
+			} catch (IOException e) {
+				// Removed by another process
+			}
+		}
+		if (kept.size() <= max_files)
+			return;
+		kept.sort(Comparator.comparing(times::get));
+		for (Path f : kept.subList(0, kept.size() - max_files))
+			Files.deleteIfExists(f);
+	}
+}
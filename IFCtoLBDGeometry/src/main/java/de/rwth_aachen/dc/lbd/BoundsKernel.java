@@ -0,0 +1,192 @@
+package de.rwth_aachen.dc.lbd;
+
+/*
+ *  Copyright (c) 2020 Jyrki Oraskari (Jyrki.Oraskari@gmail.f)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+/**
+ * Accumulates the axis-aligned bounding box of transformed vertices without
+ * allocating. The vertices are read straight from the IfcOpenShell positions
+ * array, each one once, and the placement is applied as an affine transform:
+ * the matrices of IfcGeomServer have no projective part, so the w row of the
+ * column-major 4x4 matrix is not needed. A placement without rotation is
+ * applied once to the box instead of to every vertex.
+ *
+ * An instance is not thread safe; use one per thread.
+ */
+public final class BoundsKernel {
+	private double min_x, min_y, min_z, max_x, max_y, max_z;
+
+	public BoundsKernel() {
+		reset();
+	}
+
+	public void reset() {
+		min_x = min_y = min_z = Double.POSITIVE_INFINITY;
+		max_x = max_y = max_z = Double.NEGATIVE_INFINITY;
+	}
+
+	public boolean isEmpty() {
+		return min_x > max_x;
+	}
+
+	/**
+	 * @param positions x, y, z of the vertices
+	 * @param m         a column-major 4x4 transformation matrix, null for the
+	 *                  identity
+	 */
+	public void add(float[] positions, double[] m) {
+		if (m == null || isTranslation(m)) {
+			addTranslated(positions, m == null ? 0 : m[12], m == null ? 0 : m[13], m == null ? 0 : m[14]);
+			return;
+		}
+		final double m0 = m[0], m1 = m[1], m2 = m[2];
+		final double m4 = m[4], m5 = m[5], m6 = m[6];
+		final double m8 = m[8], m9 = m[9], m10 = m[10];
+		final double m12 = m[12], m13 = m[13], m14 = m[14];
+		double lx = min_x, ly = min_y, lz = min_z, hx = max_x, hy = max_y, hz = max_z;
+		final int n = positions.length - 2;
+		for (int i = 0; i < n; i += 3) {
+			final double x = positions[i];
+			final double y = positions[i + 1];
+			final double z = positions[i + 2];
+			final double tx = m0 * x + m4 * y + m8 * z + m12;
+			final double ty = m1 * x + m5 * y + m9 * z + m13;
+			final double tz = m2 * x + m6 * y + m10 * z + m14;
+			if (tx < lx)
+				lx = tx;
+			if (tx > hx)
+				hx = tx;
+			if (ty < ly)
+				ly = ty;
+			if (ty > hy)
+				hy = ty;
+			if (tz < lz)
+				lz = tz;
+			if (tz > hz)
+				hz = tz;
+		}
+		min_x = lx;
+		min_y = ly;
+		min_z = lz;
+		max_x = hx;
+		max_y = hy;
+		max_z = hz;
+	}
+
+	private void addTranslated(float[] positions, double dx, double dy, double dz) {
+		float lx = Float.POSITIVE_INFINITY, ly = Float.POSITIVE_INFINITY, lz = Float.POSITIVE_INFINITY;
+		float hx = Float.NEGATIVE_INFINITY, hy = Float.NEGATIVE_INFINITY, hz = Float.NEGATIVE_INFINITY;
+		final int n = positions.length - 2;
+		for (int i = 0; i < n; i += 3) {
+			final float x = positions[i];
+			final float y = positions[i + 1];
+			final float z = positions[i + 2];
+			if (x < lx)
+				lx = x;
+			if (x > hx)
+				hx = x;
+			if (y < ly)
+				ly = y;
+			if (y > hy)
+				hy = y;
+			if (z < lz)
+				lz = z;
+			if (z > hz)
+				hz = z;
+		}
+		if (lx > hx)
+			return;
+		min_x = Math.min(min_x, lx + dx);
+		min_y = Math.min(min_y, ly + dy);
+		min_z = Math.min(min_z, lz + dz);
+		max_x = Math.max(max_x, hx + dx);
+		max_y = Math.max(max_y, hy + dy);
+		max_z = Math.max(max_z, hz + dz);
+	}
+
+	/**
+	 * Adds a single point.
+	 */
+	public void add(double x, double y, double z) {
+		min_x = Math.min(min_x, x);
+		min_y = Math.min(min_y, y);
+		min_z = Math.min(min_z, z);
+		max_x = Math.max(max_x, x);
+		max_y = Math.max(max_y, y);
+		max_z = Math.max(max_z, z);
+	}
+
+	/**
+	 * Adds the 8 transformed corners of a box. The result is the exact box of
+	 * the transformed content when the transform is axis aligned, and encloses
+	 * it otherwise.
+	 *
+	 * @param box min x, y, z, max x, y, z
+	 * @param m   a column-major 4x4 transformation matrix, null for the identity
+	 */
+	public void addBox(double[] box, double[] m) {
+		for (int c = 0; c < 8; c++) {
+			final double x = box[(c & 1) == 0 ? 0 : 3];
+			final double y = box[(c & 2) == 0 ? 1 : 4];
+			final double z = box[(c & 4) == 0 ? 2 : 5];
+			final double tx = m == null ? x : m[0] * x + m[4] * y + m[8] * z + m[12];
+			final double ty = m == null ? y : m[1] * x + m[5] * y + m[9] * z + m[13];
+			final double tz = m == null ? z : m[2] * x + m[6] * y + m[10] * z + m[14];
+			min_x = Math.min(min_x, tx);
+			min_y = Math.min(min_y, ty);
+			min_z = Math.min(min_z, tz);
+			max_x = Math.max(max_x, tx);
+			max_y = Math.max(max_y, ty);
+			max_z = Math.max(max_z, tz);
+		}
+	}
+
+	/**
+	 * @return true if the matrix maps each axis onto an axis (rotations by
+	 *         multiples of 90 degrees, mirroring, scaling), so that
+	 *         {@link #addBox} is exact
+	 */
+	public static boolean isAxisAligned(double[] m) {
+		return m == null || (isAxis(m[0], m[1], m[2]) && isAxis(m[4], m[5], m[6]) && isAxis(m[8], m[9], m[10]));
+	}
+
+	private static boolean isAxis(double a, double b, double c) {
+		return (a != 0 ? 1 : 0) + (b != 0 ? 1 : 0) + (c != 0 ? 1 : 0) == 1;
+	}
+
+	private static boolean isTranslation(double[] m) {
+		return m[0] == 1 && m[1] == 0 && m[2] == 0 && m[4] == 0 && m[5] == 1 && m[6] == 0 && m[8] == 0 && m[9] == 0
+				&& m[10] == 1;
+	}
+
+	/**
+	 * @param b receives min x, y, z followed by max x, y, z
+	 */
+	public void writeTo(double[] b) {
+		b[0] = min_x;
+		b[1] = min_y;
+		b[2] = min_z;
+		b[3] = max_x;
+		b[4] = max_y;
+		b[5] = max_z;
+	}
+
+	public double[] toArray() {
+		double[] b = new double[6];
+		writeTo(b);
+		return b;
+	}
+}
@@ -5,31 +5,196 @@ import java.io.FileInputStream;
 import java.io.IOException;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
 
-import javax.vecmath.Point3d;
-
-import org.bimserver.geometry.Matrix;
 import org.bimserver.plugins.deserializers.DeserializeException;
 import org.bimserver.plugins.renderengine.RenderEngineException;
+import org.ifcopenshell.IfcGeomServerClient;
 import org.ifcopenshell.IfcGeomServerClientEntity;
+import org.ifcopenshell.IfcGeomServerPool;
+import org.ifcopenshell.IfcGeomServerSettings;
 import org.ifcopenshell.IfcOpenShellEngine;
 import org.ifcopenshell.IfcOpenShellEntityInstance;
 import org.ifcopenshell.IfcOpenShellModel;
 
 import de.rwth_aachen.dc.OperatingSystemCopyOf_IfcGeomServer;
+import de.rwth_aachen.dc.lbd.analytic.AnalyticBoundingBoxes;
 
 public class IFCBoundingBoxes {
 
+	// Set in the mode that keeps the meshes
 	private final IfcOpenShellModel renderEngineModel;
+	// GUID -> min x, y, z, max x, y, z in the streaming mode
+	private final Map<String, double[]> bounds;
+
+	// Started IfcGeomServer processes shared by the conversions
+	private static IfcGeomServerPool server_pool = null;
+
+	// One hook for the pool that is current at exit; the replaced ones are closed already
+	static {
+		Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+			IfcGeomServerPool pool;
+			synchronized (IFCBoundingBoxes.class) {
+				pool = server_pool;
+				server_pool = null;
+			}
+			if (pool != null)
+				pool.close();
+		}, "IfcGeomServer pool shutdown"));
+	}
+	private static int pool_size = 1;
+	private static int pool_max_models = 1;
+	private static long pool_timeout_ms = 10 * 60 * 1000;
+	private static IfcGeomServerSettings pool_settings = IfcGeomServerSettings.boundingBoxes();
+	// null for the IfcGeomServer of the platform
+	private static Path server_executable = null;
+
+	// The boxes of the models converted before, null if they are not kept
+	private static BoundingBoxCache cache = null;
+	// Part of the cache key; raise it when the computed boxes change
+	private static final int BOUNDS_VERSION = 1;
+
+	/**
+	 * @param bounding_box_cache where the boxes of the converted models are kept,
+	 *                           e.g. BoundingBoxCache.inUserHome(), null to
+	 *                           compute them every time. The default is null.
+	 */
+	public static synchronized void setCache(BoundingBoxCache bounding_box_cache) {
+		cache = bounding_box_cache;
+	}
+
+	// Whether the boxes of simple solids are computed from the IFC file
+	private static boolean analytic_boxes = false;
+
+	/**
+	 * IfcGeomServer cannot be told which products to tessellate, so the native
+	 * time is saved only when every product of a model is supported. If any
+	 * product is not, the whole file is still tessellated by IfcOpenShell; only
+	 * the decoding of the computed products' meshes is skipped on the Java side,
+	 * and the analytic pass adds its own parse of the file.
+	 * 
+	 * @param analytic if true, the boxes of the products made of extrusions,
+	 *                 blocks and boxes are computed in Java from the IFC file,
+	 *                 and the other products are taken from IfcOpenShell.
+	 *                 Openings are not subtracted from the computed boxes. The
+	 *                 default is false.
+	 */
+	public static synchronized void setAnalyticBoxes(boolean analytic) {
+		analytic_boxes = analytic;
+	}
+
+	private static synchronized boolean isAnalyticBoxes() {
+		return analytic_boxes;
+	}
+
+	private static synchronized BoundingBoxCache getCache() {
+		return cache;
+	}
+
+	private static synchronized Path getServerExecutable() {
+		return server_executable;
+	}
+
+	private static synchronized IfcGeomServerSettings getPoolSettings() {
+		return pool_settings;
+	}
+
+	/**
+	 * Sets the IfcGeomServer pool used from now on. The current pool, if any, is
+	 * closed.
+	 * 
+	 * @param size       the number of processes kept started. More conversions
+	 *                   at the same time start extra processes.
+	 * @param max_models the number of models a process converts before it is
+	 *                   replaced
+	 * @param timeout_ms the time after which a process that has not delivered
+	 *                   all the geometry is killed
+	 */
+	public static synchronized void configureServerPool(int size, int max_models, long timeout_ms) {
+		configureServerPool(size, max_models, timeout_ms, pool_settings);
+	}
+
+	/**
+	 * @param settings the IfcGeomServer settings. The default is
+	 *                 IfcGeomServerSettings.boundingBoxes().
+	 */
+	public static synchronized void configureServerPool(int size, int max_models, long timeout_ms,
+			IfcGeomServerSettings settings) {
+		pool_settings = settings.copy();
+		pool_size = size;
+		pool_max_models = max_models;
+		pool_timeout_ms = timeout_ms;
+		if (server_pool != null) {
+			server_pool.close();
+			server_pool = null;
+		}
+	}
+
+	/**
+	 * Sets the executable used from now on in place of the IfcGeomServer of the
+	 * platform, e.g. a launcher of IfcGeomServerStandIn. The current pool, if
+	 * any, is closed.
+	 * 
+	 * @param executable the IfcGeomServer compatible executable, null for the
+	 *                   IfcGeomServer of the platform
+	 */
+	public static synchronized void setServerExecutable(Path executable) {
+		server_executable = executable;
+		if (server_pool != null) {
+			server_pool.close();
+			server_pool = null;
+		}
+	}
+
+	/**
+	 * Starts the IfcGeomServer processes in the background, so that the first
+	 * conversion does not wait for them.
+	 */
+	public static void warmUp() {
+		getServerPool();
+	}
+
+	private static synchronized IfcGeomServerPool getServerPool() {
+		if (server_pool == null) {
+			Path executable = server_executable;
+			if (executable == null)
+				executable = Paths.get(OperatingSystemCopyOf_IfcGeomServer.getIfcGeomServer());
+			System.out.println("ifcGeomServerLocation: " + executable);
+			server_pool = new IfcGeomServerPool(executable, pool_size, pool_max_models, pool_timeout_ms,
+					pool_settings);
+		}
+		return server_pool;
+	}
 
 	public IFCBoundingBoxes(File ifcFile) throws DeserializeException, IOException, RenderEngineException {
-		this.renderEngineModel = getRenderEngineModel(ifcFile);
+		this(ifcFile, true);
+	}
 
+	/**
+	 * @param ifcFile   the IFC model
+	 * @param streaming if true, only the box of each element is kept while the
+	 *                  geometry arrives and the meshes are dropped at once.
+	 *                  Otherwise all the meshes are kept and the boxes are
+	 *                  computed when they are asked for.
+	 */
+	public IFCBoundingBoxes(File ifcFile, boolean streaming) throws DeserializeException, IOException, RenderEngineException {
+		if (streaming) {
+			this.renderEngineModel = null;
+			this.bounds = loadOrStreamBounds(ifcFile);
+		} else {
+			this.renderEngineModel = getRenderEngineModel(ifcFile);
+			this.bounds = null;
+		}
 	}
 
 	public BoundingBox getBoundingBox(String guid) {
-		BoundingBox boundingBox = null;
-
+		if (bounds != null) {
+			double[] b = bounds.get(guid);
+			return b == null ? null : new BoundingBox(b);
+		}
 		IfcOpenShellEntityInstance renderEngineInstance;
 		renderEngineInstance = renderEngineModel.getInstanceFromGUID(guid);
 
@@ -38,53 +203,146 @@ public class IFCBoundingBoxes {
 		}
 
 		IfcGeomServerClientEntity geometry = renderEngineInstance.generateGeometry();
-        if (geometry != null && geometry.getIndices().length > 0) {
-            boundingBox = new BoundingBox();
-            double[] tranformationMatrix = new double[16];
-            Matrix.setIdentityM(tranformationMatrix, 0);
-            if (renderEngineInstance.getTransformationMatrix() != null) {
-                tranformationMatrix = renderEngineInstance.getTransformationMatrix();
-            }
-            for (int i = 0; i < geometry.getIndices().length; i++) {
-                Point3d p=processExtends(tranformationMatrix, geometry.getPositions(), geometry.getIndices()[i] * 3);
-                boundingBox.add(p);
-            }
-        }
-
-		return boundingBox;
+		if (geometry == null)
+			return null;
+		double[] b = computeBounds(geometry, new BoundsKernel());
+		return b == null ? null : new BoundingBox(b);
 	}
 
-	private IfcOpenShellModel getRenderEngineModel(File ifcFile) throws RenderEngineException, IOException {
-		String ifcGeomServerLocation = OperatingSystemCopyOf_IfcGeomServer.getIfcGeomServer();
-		System.out.println("ifcGeomServerLocation: " + ifcGeomServerLocation);
-		Path ifcGeomServerLocationPath = Paths.get(ifcGeomServerLocation);
-		IfcOpenShellEngine ifcOpenShellEngine = new IfcOpenShellEngine(ifcGeomServerLocationPath, false, false);
-		System.out.println("init");
-		ifcOpenShellEngine.init();
-		System.out.println("init done");
-		FileInputStream ifcFileInputStream = new FileInputStream(ifcFile);
-
-		System.out.println("ifcFile: " + ifcFile);
-		IfcOpenShellModel model = ifcOpenShellEngine.openModel(ifcFileInputStream);
-		System.out.println("IfcOpenShell opens ifc: " + ifcFile.getAbsolutePath());
+	/**
+	 * Takes the boxes from the cache when the same file has been converted with
+	 * the same settings before, otherwise computes or streams them from the
+	 * geometry server and stores them. An incomplete stream is an error.
+	 */
+	private Map<String, double[]> loadOrStreamBounds(File ifcFile) throws RenderEngineException, IOException {
+		BoundingBoxCache bounding_box_cache = getCache();
+		boolean analytic = isAnalyticBoxes();
+		String key = null;
+		if (bounding_box_cache != null) {
+			try {
+				key = BoundingBoxCache.key(ifcFile, cacheSettings(analytic));
+				Map<String, double[]> cached = bounding_box_cache.load(key);
+				if (cached != null) {
+					System.out.println("Bounding boxes from the cache: " + cached.size());
+					return cached;
+				}
+			} catch (IOException e) {
+				e.printStackTrace();
+			}
+		}
+		Map<String, double[]> computed = new HashMap<>();
+		if (analytic)
+			analyticBounds(ifcFile, computed);
+		else
+			streamBounds(ifcFile, computed, Collections.emptySet());
+		if (key != null)
+			bounding_box_cache.store(key, computed);
+		return computed;
+	}
 
-		model.generateGeneralGeometry();
-		return model;
+	/**
+	 * @return what the boxes depend on besides the IFC file: the geometry server
+	 *         executable and version, its settings and the box computation
+	 */
+	private static String cacheSettings(boolean analytic) {
+		StringBuilder sb = new StringBuilder();
+		Path executable = getServerExecutable();
+		if (executable == null)
+			executable = Paths.get(OperatingSystemCopyOf_IfcGeomServer.getIfcGeomServer());
+		File f = executable.toFile();
+		sb.append(f.getAbsolutePath()).append(' ').append(f.length()).append(' ').append(f.lastModified());
+		sb.append(' ').append(IfcGeomServerClient.getRequiredVersion());
+		sb.append(' ').append(getPoolSettings());
+		sb.append(" bounds ").append(BOUNDS_VERSION);
+		if (analytic)
+			sb.append(" analytic");
+		return sb.toString();
 	}
 
-    private Point3d processExtends(double[] transformationMatrix, float[] ds, int index) {
-        double x = ds[index];
-        double y = ds[index + 1];
-        double z = ds[index + 2];
+	/**
+	 * Computes the boxes of the simple solids. If there are other products, the
+	 * whole file goes to the geometry server, and only the meshes of the computed
+	 * products are left undecoded.
+	 */
+	private void analyticBounds(File ifcFile, Map<String, double[]> bounds) throws RenderEngineException, IOException {
+		AnalyticBoundingBoxes analytic;
+		try {
+			analytic = new AnalyticBoundingBoxes(ifcFile);
+		} catch (IOException | RuntimeException e) {
+			e.printStackTrace();
+			streamBounds(ifcFile, bounds, Collections.emptySet());
+			return;
+		}
+		System.out.println(String.format("Analytic bounding boxes: %d, left to IfcOpenShell: %d",
+				analytic.getBounds().size(), analytic.getUnsupported().size()));
+		if (!analytic.getUnsupported().isEmpty())
+			streamBounds(ifcFile, bounds, analytic.getBounds().keySet());
+		bounds.putAll(analytic.getBounds());
+	}
 
-        double[] result = new double[4];
-        Matrix.multiplyMV(result, 0, transformationMatrix, 0, new double[] { x, y, z, 1 }, 0);
-        
-        Point3d point = new Point3d(result[0], result[1], result[2]);
-              
-        return point;
+	/**
+	 * @param computed the GUIDs whose boxes are known already, their meshes are
+	 *                 not decoded
+	 * @throws RenderEngineException also if the geometry server stopped before
+	 *                               the end of the model, e.g. killed after the
+	 *                               timeout, so that no partial boxes are used
+	 */
+	private void streamBounds(File ifcFile, Map<String, double[]> bounds, Set<String> computed)
+			throws RenderEngineException, IOException {
+		IfcOpenShellEngine ifcOpenShellEngine = new IfcOpenShellEngine(getServerPool());
+		System.out.println("ifcFile: " + ifcFile);
+		try (FileInputStream ifcFileInputStream = new FileInputStream(ifcFile)) {
+			IfcOpenShellModel model = ifcOpenShellEngine.openModel(ifcFileInputStream);
+			System.out.println("IfcOpenShell streams ifc: " + ifcFile.getAbsolutePath());
+			try {
+				// Only the positions, indices and placement are needed, and the
+				// mesh of a shared representation only for its first and its
+				// rotated instances
+				RepresentationBounds representations = new RepresentationBounds();
+				model.setReadMeshAttributes(false);
+				model.setMeshFilter(
+						(guid, repId, matrix) -> computed.contains(guid) || representations.canReuse(repId, matrix));
+				BoundsKernel kernel = new BoundsKernel();
+				boolean complete = model.streamGeometry(entity -> {
+					double[] b = representations.bounds(entity, kernel);
+					if (b != null)
+						bounds.put(entity.getGuid(), b);
+				});
+				if (!complete)
+					throw new RenderEngineException(String.format(
+							"IfcGeomServer stopped before the end of %s after %d bounding boxes", ifcFile, bounds.size()));
+				System.out.println(String.format("Bounding boxes: %d, representations: %d, reused: %d",
+						bounds.size(), representations.size(), representations.getReusedCount()));
+			} finally {
+				model.release();
+			}
+		}
+	}
 
-    }
-    
+	/**
+	 * @return min x, y, z, max x, y, z of the transformed vertices, null if the
+	 *         entity has no triangles
+	 */
+	private static double[] computeBounds(IfcGeomServerClientEntity geometry, BoundsKernel kernel) {
+		if (geometry.getIndices() == null || geometry.getIndices().length == 0)
+			return null;
+		kernel.reset();
+		kernel.add(geometry.getPositions(), geometry.getMatrix());
+		return kernel.isEmpty() ? null : kernel.toArray();
+	}
 
-}
\ No newline at end of file
+	private IfcOpenShellModel getRenderEngineModel(File ifcFile) throws RenderEngineException, IOException {
+		IfcOpenShellEngine ifcOpenShellEngine = new IfcOpenShellEngine(getServerPool());
+		System.out.println("ifcFile: " + ifcFile);
+		try (FileInputStream ifcFileInputStream = new FileInputStream(ifcFile)) {
+			IfcOpenShellModel model = ifcOpenShellEngine.openModel(ifcFileInputStream);
+			System.out.println("IfcOpenShell opens ifc: " + ifcFile.getAbsolutePath());
+			try {
+				model.generateGeneralGeometry();
+			} finally {
+				model.release();
+			}
+			return model;
+		}
+	}
+}
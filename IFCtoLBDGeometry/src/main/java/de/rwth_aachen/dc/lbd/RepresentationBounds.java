@@ -0,0 +1,91 @@
+package de.rwth_aachen.dc.lbd;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import org.ifcopenshell.IfcGeomServerClientEntity;
+
+/*
+ *  Copyright (c) 2020 Jyrki Oraskari (Jyrki.Oraskari@gmail.f)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+/**
+ * The local boxes of the representations seen in one geometry stream, by
+ * IfcOpenShell repId. Placed instances of a shared representation (typed
+ * windows, doors, furniture) arrive with the same repId, the same local mesh
+ * and their own matrix. Only the local box of a representation is kept:
+ * <ul>
+ * <li>an instance with an axis-aligned placement transforms the 8 corners of
+ * the local box, so its mesh is not decoded,</li>
+ * <li>an instance with any other placement is decoded and its vertices are
+ * transformed, which keeps the box exact.</li>
+ * </ul>
+ * Not thread safe; one instance per stream.
+ */
+public class RepresentationBounds {
+	private final Map<Integer, double[]> local_boxes = new HashMap<>();
+	private int reused = 0;
+
+	/**
+	 * @param matrix the placement of the instance in either orientation
+	 * @return true if the box of the instance follows from the local box, so its
+	 *         mesh does not need to be decoded
+	 */
+	public boolean canReuse(int repId, double[] matrix) {
+		// A non-singular matrix is axis aligned if and only if its transpose is
+		return local_boxes.containsKey(repId) && BoundsKernel.isAxisAligned(matrix);
+	}
+
+	/**
+	 * @return min x, y, z, max x, y, z of the placed entity, null if it has no
+	 *         triangles
+	 */
+	public double[] bounds(IfcGeomServerClientEntity entity, BoundsKernel kernel) {
+		double[] matrix = entity.getMatrix();
+		if (entity.getIndices() == null || entity.getIndices().length == 0) {
+			// The mesh was skipped, the local box is known
+			double[] local_box = local_boxes.get(entity.getRepId());
+			if (local_box == null)
+				return null;
+			reused++;
+			kernel.reset();
+			kernel.addBox(local_box, matrix);
+			return kernel.toArray();
+		}
+		if (entity.getRepId() > 0 && !local_boxes.containsKey(entity.getRepId())) {
+			kernel.reset();
+			kernel.add(entity.getPositions(), null);
+			if (!kernel.isEmpty())
+				local_boxes.put(entity.getRepId(), kernel.toArray());
+		}
+		kernel.reset();
+		kernel.add(entity.getPositions(), matrix);
+		return kernel.isEmpty() ? null : kernel.toArray();
+	}
+
+	/**
+	 * @return the number of distinct representations
+	 */
+	public int size() {
+		return local_boxes.size();
+	}
+
+	/**
+	 * @return the number of entities whose box came from an earlier mesh
+	 */
+	public int getReusedCount() {
+		return reused;
+	}
+}
@@ -0,0 +1,567 @@
+package de.rwth_aachen.dc.lbd.analytic;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import de.rwth_aachen.dc.lbd.BoundsKernel;
+import de.rwth_aachen.dc.lbd.analytic.SpfReader.Instance;
+import de.rwth_aachen.dc.lbd.analytic.SpfReader.Ref;
+import de.rwth_aachen.dc.lbd.analytic.SpfReader.Symbol;
+import de.rwth_aachen.dc.lbd.analytic.SpfReader.Typed;
+
+/*
+ *  Copyright (c) 2020 Jyrki Oraskari (Jyrki.Oraskari@gmail.f)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+/**
+ * Computes the bounding boxes of the products whose 'Body' representation is
+ * made of simple solids directly from the IFC file, without tessellation:
+ * extrusions of rectangle, circle and polyline profiles, IfcBoundingBox,
+ * IfcBlock and mapped items of those, placed by IfcLocalPlacement chains. The
+ * boxes are exact for these solids and are in metres, as the IfcOpenShell
+ * ones.
+ *
+ * A product with anything else in its body (Breps, boolean results, swept
+ * disks, curves with arcs...) is listed in {@link #getUnsupported()} and is
+ * left to IfcOpenShell, which then still converts the whole file. Openings
+ * are not subtracted, so the box of an element with an opening on its edge can
+ * be larger than the IfcOpenShell one. Opening elements get no box.
+ */
+public class AnalyticBoundingBoxes {
+	private static final int MAX_DEPTH = 64;
+
+	// The instances that the boxes are computed from, besides the products
+	private static final Set<String> GEOMETRY = new HashSet<>(Arrays.asList("IFCLOCALPLACEMENT",
+			"IFCGRIDPLACEMENT", "IFCAXIS2PLACEMENT3D", "IFCAXIS2PLACEMENT2D", "IFCDIRECTION",
+			"IFCPRODUCTDEFINITIONSHAPE", "IFCSHAPEREPRESENTATION", "IFCEXTRUDEDAREASOLID", "IFCBOUNDINGBOX",
+			"IFCBLOCK", "IFCCSGSOLID", "IFCPOLYLINE", "IFCINDEXEDPOLYCURVE", "IFCCARTESIANPOINTLIST2D",
+			"IFCRECTANGLEPROFILEDEF", "IFCRECTANGLEHOLLOWPROFILEDEF", "IFCCIRCLEPROFILEDEF",
+			"IFCCIRCLEHOLLOWPROFILEDEF", "IFCARBITRARYCLOSEDPROFILEDEF", "IFCARBITRARYPROFILEDEFWITHVOIDS",
+			"IFCMAPPEDITEM", "IFCREPRESENTATIONMAP", "IFCCARTESIANTRANSFORMATIONOPERATOR3D",
+			"IFCCARTESIANTRANSFORMATIONOPERATOR3DNONUNIFORM", "IFCPROJECT", "IFCUNITASSIGNMENT", "IFCSIUNIT",
+			"IFCCONVERSIONBASEDUNIT", "IFCMEASUREWITHUNIT"));
+
+	// Numerous instances that are never needed. The cartesian points are read
+	// in a second pass, only the referenced ones.
+	private static final String[] SKIPPED_PREFIXES = { "IFCPROPERTY", "IFCREL", "IFCQUANTITY",
+			"IFCELEMENTQUANTITY", "IFCPOLYLOOP", "IFCFACE", "IFCSTYLEDITEM", "IFCPRESENTATION", "IFCSURFACESTYLE",
+			"IFCCOLOURRGB", "IFCTRIANGULATEDFACESET", "IFCPOLYGONALFACESET", "IFCINDEXEDPOLYGONALFACE" };
+
+	private static final Map<String, Double> SI_PREFIXES = new HashMap<>();
+	static {
+		String[] names = { "EXA", "PETA", "TERA", "GIGA", "MEGA", "KILO", "HECTO", "DECA", "DECI", "CENTI", "MILLI",
+				"MICRO", "NANO", "PICO", "FEMTO", "ATTO" };
+		int[] exponents = { 18, 15, 12, 9, 6, 3, 2, 1, -1, -2, -3, -6, -9, -12, -15, -18 };
+		for (int i = 0; i < names.length; i++)
+			SI_PREFIXES.put(names[i], Math.pow(10, exponents[i]));
+	}
+
+	private static final double[] IDENTITY = { 1, 0, 0, 0, 0, 1, 0, 0, 0, 0, 1, 0, 0, 0, 0, 1 };
+
+	/**
+	 * Thrown when a product has geometry that is not computed here.
+	 */
+	private static class Unsupported extends Exception {
+		private static final long serialVersionUID = 1L;
+
+		Unsupported(String message) {
+			super(message, null, false, false);
+		}
+	}
+
+	private final Map<Integer, Instance> instances;
+	private final Map<Integer, double[]> placements = new HashMap<>();
+	private final Map<String, double[]> bounds = new HashMap<>();
+	private final Set<String> unsupported = new HashSet<>();
+	private double length_unit = 1;
+
+	public AnalyticBoundingBoxes(File ifcFile) throws IOException {
+		this.instances = SpfReader.read(ifcFile, new SpfReader.Selector() {
+			@Override
+			public boolean parse(String type) {
+				if (type.equals("IFCCARTESIANPOINT"))
+					return false;
+				for (String prefix : SKIPPED_PREFIXES)
+					if (type.startsWith(prefix))
+						return false;
+				return true;
+			}
+
+			@Override
+			public boolean keep(Instance instance) {
+				return GEOMETRY.contains(instance.type) || isProduct(instance);
+			}
+		});
+		Set<Integer> referenced = new HashSet<>();
+		for (Instance i : instances.values())
+			collectReferences(i.attributes, referenced);
+		this.instances.putAll(SpfReader.read(ifcFile, new SpfReader.Selector() {
+			@Override
+			public boolean parse(String type) {
+				return type.equals("IFCCARTESIANPOINT");
+			}
+
+			@Override
+			public boolean keep(Instance instance) {
+				return referenced.contains(instance.id);
+			}
+		}));
+		this.length_unit = lengthUnit();
+
+		BoundsKernel kernel = new BoundsKernel();
+		for (Instance i : instances.values()) {
+			if (isProduct(i))
+				addProduct(i, kernel);
+		}
+	}
+
+	/**
+	 * @return GUID to min x, y, z, max x, y, z in metres for the products that
+	 *         have only supported geometry
+	 */
+	public Map<String, double[]> getBounds() {
+		return Collections.unmodifiableMap(bounds);
+	}
+
+	/**
+	 * @return the GUIDs of the products whose geometry has to come from
+	 *         IfcOpenShell
+	 */
+	public Set<String> getUnsupported() {
+		return Collections.unmodifiableSet(unsupported);
+	}
+
+	/**
+	 * @return the length of the model unit in metres
+	 */
+	public double getLengthUnit() {
+		return length_unit;
+	}
+
+	/**
+	 * A product has a GlobalId, an ObjectPlacement and a Representation as the
+	 * attributes 0, 5 and 6.
+	 */
+	private static boolean isProduct(Instance i) {
+		Object guid = i.get(0);
+		return guid instanceof String && ((String) guid).length() == 22
+				&& (i.get(5) == null || i.get(5) instanceof Ref) && i.get(6) instanceof Ref;
+	}
+
+	private static void collectReferences(List<Object> values, Set<Integer> referenced) {
+		for (Object v : values) {
+			if (v instanceof Ref)
+				referenced.add(((Ref) v).id);
+			else if (v instanceof List)
+				collectReferences(asList(v), referenced);
+		}
+	}
+
+	private void addProduct(Instance product, BoundsKernel kernel) {
+		Instance shape = instance(product.get(6));
+		if (shape == null || !shape.type.equals("IFCPRODUCTDEFINITIONSHAPE"))
+			return;
+		if (product.type.equals("IFCOPENINGELEMENT"))
+			return;
+		String guid = (String) product.get(0);
+		try {
+			Instance body = null;
+			for (Object r : asList(shape.get(2))) {
+				Instance representation = instance(r);
+				if (representation != null && "Body".equalsIgnoreCase(string(representation.get(1))))
+					body = representation;
+			}
+			if (body == null)
+				throw new Unsupported("No body representation");
+			kernel.reset();
+			addRepresentation(body, placement(product.get(5), 0), kernel, 0);
+			if (kernel.isEmpty())
+				return;
+			double[] b = kernel.toArray();
+			for (int i = 0; i < b.length; i++)
+				b[i] *= length_unit;
+			bounds.put(guid, b);
+		} catch (Unsupported e) {
+			unsupported.add(guid);
+		}
+	}
+
+	private void addRepresentation(Instance representation, double[] m, BoundsKernel kernel, int depth)
+			throws Unsupported {
+		for (Object item : asList(representation.get(3)))
+			addItem(require(item), m, kernel, depth);
+	}
+
+	private void addItem(Instance item, double[] m, BoundsKernel kernel, int depth) throws Unsupported {
+		switch (item.type) {
+		case "IFCEXTRUDEDAREASOLID":
+			addExtrusion(item, m, kernel);
+			break;
+		case "IFCBOUNDINGBOX": {
+			double[] corner = point(item.get(0));
+			double[] box = { corner[0], corner[1], corner[2], corner[0] + number(item.get(1)),
+					corner[1] + number(item.get(2)), corner[2] + number(item.get(3)) };
+			kernel.addBox(box, m);
+			break;
+		}
+		case "IFCBLOCK": {
+			double[] box = { 0, 0, 0, number(item.get(1)), number(item.get(2)), number(item.get(3)) };
+			kernel.addBox(box, multiply(m, axis2Placement(item.get(0))));
+			break;
+		}
+		case "IFCCSGSOLID": {
+			Instance root = require(item.get(0));
+			if (!root.type.equals("IFCBLOCK"))
+				throw new Unsupported(root.type);
+			addItem(root, m, kernel, depth);
+			break;
+		}
+		case "IFCMAPPEDITEM": {
+			if (depth > MAX_DEPTH)
+				throw new Unsupported("Mapping depth");
+			Instance map = require(item.get(0));
+			double[] target = transformationOperator(require(item.get(1)));
+			double[] mm = multiply(m, multiply(target, axis2Placement(map.get(0))));
+			addRepresentation(require(map.get(1)), mm, kernel, depth + 1);
+			break;
+		}
+		default:
+			throw new Unsupported(item.type);
+		}
+	}
+
+	/**
+	 * The box of an extrusion is the box of the profile at both ends, which is
+	 * exact because the solid is the sweep of the profile along a line.
+	 */
+	private void addExtrusion(Instance solid, double[] m, BoundsKernel kernel) throws Unsupported {
+		double[] s = solid.get(1) == null ? m : multiply(m, axis2Placement(solid.get(1)));
+		double[] d = normalize(direction(solid.get(2)));
+		double depth = number(solid.get(3));
+		double dx = d[0] * depth, dy = d[1] * depth, dz = d[2] * depth;
+
+		Instance profile = require(solid.get(0));
+		switch (profile.type) {
+		case "IFCRECTANGLEPROFILEDEF":
+		case "IFCRECTANGLEHOLLOWPROFILEDEF": {
+			double[] p = axis2Placement(profile.get(2));
+			double hx = number(profile.get(3)) / 2, hy = number(profile.get(4)) / 2;
+			List<double[]> corners = new ArrayList<>();
+			for (int c = 0; c < 4; c++)
+				corners.add(transform(p, (c & 1) == 0 ? -hx : hx, (c & 2) == 0 ? -hy : hy, 0));
+			addSweep(corners, s, dx, dy, dz, kernel);
+			break;
+		}
+		case "IFCCIRCLEPROFILEDEF":
+		case "IFCCIRCLEHOLLOWPROFILEDEF": {
+			double[] p = multiply(s, axis2Placement(profile.get(2)));
+			double r = number(profile.get(3));
+			// The circle spans r * |(u_i, v_i)| along the world axis i
+			double[] e = { r * Math.hypot(p[0], p[4]), r * Math.hypot(p[1], p[5]), r * Math.hypot(p[2], p[6]) };
+			double[] c = { p[12], p[13], p[14] };
+			double[] t = transform(s, dx, dy, dz);
+			double[] t0 = transform(s, 0, 0, 0);
+			for (int end = 0; end < 2; end++) {
+				double ox = end == 0 ? 0 : t[0] - t0[0];
+				double oy = end == 0 ? 0 : t[1] - t0[1];
+				double oz = end == 0 ? 0 : t[2] - t0[2];
+				kernel.add(c[0] + ox - e[0], c[1] + oy - e[1], c[2] + oz - e[2]);
+				kernel.add(c[0] + ox + e[0], c[1] + oy + e[1], c[2] + oz + e[2]);
+			}
+			break;
+		}
+		case "IFCARBITRARYCLOSEDPROFILEDEF":
+		case "IFCARBITRARYPROFILEDEFWITHVOIDS":
+			addSweep(curvePoints(require(profile.get(2))), s, dx, dy, dz, kernel);
+			break;
+		default:
+			throw new Unsupported(profile.type);
+		}
+	}
+
+	/**
+	 * Adds the profile points, given in the solid coordinates s, at both ends of
+	 * the extrusion.
+	 */
+	private static void addSweep(List<double[]> points, double[] s, double dx, double dy, double dz,
+			BoundsKernel kernel) {
+		for (double[] q : points) {
+			double[] a = transform(s, q[0], q[1], q[2]);
+			double[] b = transform(s, q[0] + dx, q[1] + dy, q[2] + dz);
+			kernel.add(a[0], a[1], a[2]);
+			kernel.add(b[0], b[1], b[2]);
+		}
+	}
+
+	private List<double[]> curvePoints(Instance curve) throws Unsupported {
+		List<double[]> points = new ArrayList<>();
+		switch (curve.type) {
+		case "IFCPOLYLINE":
+			for (Object p : asList(curve.get(0)))
+				points.add(point(p));
+			break;
+		case "IFCINDEXEDPOLYCURVE": {
+			Instance list = require(curve.get(0));
+			if (!list.type.equals("IFCCARTESIANPOINTLIST2D"))
+				throw new Unsupported(list.type);
+			List<Object> coordinates = asList(list.get(0));
+			if (curve.get(1) == null) {
+				for (Object c : coordinates)
+					points.add(coordinates(c));
+				break;
+			}
+			for (Object segment : asList(curve.get(1))) {
+				// An arc bulges past its points
+				if (!(segment instanceof Typed) || !((Typed) segment).type.equals("IFCLINEINDEX"))
+					throw new Unsupported("Curve segment");
+				for (Object index : asList(((Typed) segment).value)) {
+					int i = (int) number(index) - 1;
+					if (i < 0 || i >= coordinates.size())
+						throw new Unsupported("Point index");
+					points.add(coordinates(coordinates.get(i)));
+				}
+			}
+			break;
+		}
+		default:
+			throw new Unsupported(curve.type);
+		}
+		return points;
+	}
+
+	private double[] placement(Object ref, int depth) throws Unsupported {
+		if (ref == null)
+			return IDENTITY;
+		Instance placement = require(ref);
+		double[] m = placements.get(placement.id);
+		if (m != null)
+			return m;
+		if (!placement.type.equals("IFCLOCALPLACEMENT") || depth > MAX_DEPTH)
+			throw new Unsupported(placement.type);
+		m = multiply(placement(placement.get(0), depth + 1), axis2Placement(placement.get(1)));
+		placements.put(placement.id, m);
+		return m;
+	}
+
+	/**
+	 * @return the column-major matrix of an IfcAxis2Placement3D or 2D, the
+	 *         identity for null
+	 */
+	private double[] axis2Placement(Object ref) throws Unsupported {
+		if (ref == null)
+			return IDENTITY;
+		Instance a = require(ref);
+		double[] o = point(a.get(0));
+		double[] x, z;
+		switch (a.type) {
+		case "IFCAXIS2PLACEMENT3D":
+			z = a.get(1) == null ? new double[] { 0, 0, 1 } : normalize(direction(a.get(1)));
+			x = a.get(2) == null ? new double[] { 1, 0, 0 } : direction(a.get(2));
+			break;
+		case "IFCAXIS2PLACEMENT2D":
+			z = new double[] { 0, 0, 1 };
+			x = a.get(1) == null ? new double[] { 1, 0, 0 } : direction(a.get(1));
+			break;
+		default:
+			throw new Unsupported(a.type);
+		}
+		x = orthogonal(x, z);
+		return matrix(x, cross(z, x), z, 1, 1, 1, o);
+	}
+
+	private double[] transformationOperator(Instance t) throws Unsupported {
+		boolean nonuniform = t.type.equals("IFCCARTESIANTRANSFORMATIONOPERATOR3DNONUNIFORM");
+		if (!nonuniform && !t.type.equals("IFCCARTESIANTRANSFORMATIONOPERATOR3D"))
+			throw new Unsupported(t.type);
+		double[] z = t.get(4) == null ? new double[] { 0, 0, 1 } : normalize(direction(t.get(4)));
+		double[] x = orthogonal(t.get(0) == null ? new double[] { 1, 0, 0 } : direction(t.get(0)), z);
+		double[] y = cross(z, x);
+		if (t.get(1) != null && dot(direction(t.get(1)), y) < 0) {
+			// A mirroring operator
+			y[0] = -y[0];
+			y[1] = -y[1];
+			y[2] = -y[2];
+		}
+		double scale = t.get(3) == null ? 1 : number(t.get(3));
+		double scale2 = nonuniform && t.get(5) != null ? number(t.get(5)) : scale;
+		double scale3 = nonuniform && t.get(6) != null ? number(t.get(6)) : scale;
+		return matrix(x, y, z, scale, scale2, scale3, point(t.get(2)));
+	}
+
+	/**
+	 * @return the length of the project length unit in metres
+	 */
+	private double lengthUnit() {
+		for (Instance project : instances.values()) {
+			if (!project.type.equals("IFCPROJECT"))
+				continue;
+			Instance assignment = instance(project.get(8));
+			if (assignment == null)
+				return 1;
+			for (Object u : asList(assignment.get(0))) {
+				Instance unit = instance(u);
+				if (unit != null && isLengthUnit(unit)) {
+					Double factor = unitFactor(unit);
+					return factor == null ? 1 : factor;
+				}
+			}
+		}
+		return 1;
+	}
+
+	private static boolean isLengthUnit(Instance unit) {
+		return unit.get(1) instanceof Symbol && ((Symbol) unit.get(1)).name.equals("LENGTHUNIT");
+	}
+
+	private Double unitFactor(Instance unit) {
+		switch (unit.type) {
+		case "IFCSIUNIT":
+			if (unit.get(2) instanceof Symbol)
+				return SI_PREFIXES.get(((Symbol) unit.get(2)).name);
+			return 1.0;
+		case "IFCCONVERSIONBASEDUNIT": {
+			Instance measure = instance(unit.get(3));
+			if (measure == null)
+				return null;
+			Instance base = instance(measure.get(1));
+			Double base_factor = base == null ? Double.valueOf(1) : unitFactor(base);
+			try {
+				return base_factor == null ? null : number(measure.get(0)) * base_factor;
+			} catch (Unsupported e) {
+				return null;
+			}
+		}
+		default:
+			return null;
+		}
+	}
+
+	private Instance instance(Object ref) {
+		return ref instanceof Ref ? instances.get(((Ref) ref).id) : null;
+	}
+
+	/**
+	 * @return the referenced instance, which has been read only if it is of a
+	 *         supported type
+	 */
+	private Instance require(Object ref) throws Unsupported {
+		Instance i = instance(ref);
+		if (i == null)
+			throw new Unsupported("Unsupported reference " + ref);
+		return i;
+	}
+
+	@SuppressWarnings("unchecked")
+	private static List<Object> asList(Object o) {
+		return o instanceof List ? (List<Object>) o : Collections.emptyList();
+	}
+
+	private static String string(Object o) {
+		return o instanceof String ? (String) o : null;
+	}
+
+	private static double number(Object o) throws Unsupported {
+		if (o instanceof Double)
+			return (Double) o;
+		if (o instanceof Typed)
+			return number(((Typed) o).value);
+		throw new Unsupported("Number expected");
+	}
+
+	/**
+	 * @return x, y, z of an IfcCartesianPoint, z = 0 for a 2D point
+	 */
+	private double[] point(Object ref) throws Unsupported {
+		Instance p = require(ref);
+		if (!p.type.equals("IFCCARTESIANPOINT"))
+			throw new Unsupported(p.type);
+		return coordinates(p.get(0));
+	}
+
+	private static double[] coordinates(Object list) throws Unsupported {
+		List<Object> c = asList(list);
+		if (c.size() < 2)
+			throw new Unsupported("Coordinates");
+		return new double[] { number(c.get(0)), number(c.get(1)), c.size() > 2 ? number(c.get(2)) : 0 };
+	}
+
+	private double[] direction(Object ref) throws Unsupported {
+		Instance d = require(ref);
+		if (!d.type.equals("IFCDIRECTION"))
+			throw new Unsupported(d.type);
+		return coordinates(d.get(0));
+	}
+
+	private static double dot(double[] a, double[] b) {
+		return a[0] * b[0] + a[1] * b[1] + a[2] * b[2];
+	}
+
+	private static double[] cross(double[] a, double[] b) {
+		return new double[] { a[1] * b[2] - a[2] * b[1], a[2] * b[0] - a[0] * b[2], a[0] * b[1] - a[1] * b[0] };
+	}
+
+	private static double[] normalize(double[] v) throws Unsupported {
+		double l = Math.sqrt(dot(v, v));
+		if (l == 0)
+			throw new Unsupported("Zero direction");
+		return new double[] { v[0] / l, v[1] / l, v[2] / l };
+	}
+
+	/**
+	 * @return x projected onto the plane normal to z and normalized, or a
+	 *         default axis if x is parallel to z
+	 */
+	private static double[] orthogonal(double[] x, double[] z) throws Unsupported {
+		double d = dot(x, z);
+		double[] p = { x[0] - d * z[0], x[1] - d * z[1], x[2] - d * z[2] };
+		if (dot(p, p) < 1e-20)
+			return orthogonal(Math.abs(z[0]) < 0.9 ? new double[] { 1, 0, 0 } : new double[] { 0, 0, 1 }, z);
+		return normalize(p);
+	}
+
+	private static double[] matrix(double[] x, double[] y, double[] z, double sx, double sy, double sz,
+			double[] o) {
+		return new double[] { x[0] * sx, x[1] * sx, x[2] * sx, 0, y[0] * sy, y[1] * sy, y[2] * sy, 0, z[0] * sz,
+				z[1] * sz, z[2] * sz, 0, o[0], o[1], o[2], 1 };
+	}
+
+	/**
+	 * @return a * b of column-major affine 4x4 matrices
+	 */
+	private static double[] multiply(double[] a, double[] b) {
+		double[] r = new double[16];
+		for (int c = 0; c < 4; c++) {
+			for (int i = 0; i < 3; i++) {
+				r[c * 4 + i] = a[i] * b[c * 4] + a[4 + i] * b[c * 4 + 1] + a[8 + i] * b[c * 4 + 2]
+						+ (c == 3 ? a[12 + i] : 0);
+			}
+		}
+		r[15] = 1;
+		return r;
+	}
+
+	private static double[] transform(double[] m, double x, double y, double z) {
+		return new double[] { m[0] * x + m[4] * y + m[8] * z + m[12], m[1] * x + m[5] * y + m[9] * z + m[13],
+				m[2] * x + m[6] * y + m[10] * z + m[14] };
+	}
+}
@@ -0,0 +1,362 @@
+package de.rwth_aachen.dc.lbd.analytic;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/*
+ *  Copyright (c) 2020 Jyrki Oraskari (Jyrki.Oraskari@gmail.f)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+/**
+ * A minimal reader for the DATA section of an ISO 10303-21 (SPF) file. Only the
+ * entity instances that the caller asks for are parsed; the rest are skipped
+ * at the scanning speed.
+ *
+ * The attribute values are: {@link Ref} for an instance reference, String for
+ * a string, Double for a number, {@link Symbol} for an enumeration or a
+ * boolean, {@link Typed} for a typed parameter such as IFCLABEL('A'),
+ * List&lt;Object&gt; for an aggregate and null for $ and *.
+ */
+public class SpfReader {
+
+	public static final class Ref {
+		public final int id;
+
+		Ref(int id) {
+			this.id = id;
+		}
+
+		@Override
+		public String toString() {
+			return "#" + id;
+		}
+	}
+
+	public static final class Symbol {
+		public final String name;
+
+		Symbol(String name) {
+			this.name = name;
+		}
+
+		@Override
+		public String toString() {
+			return "." + name + ".";
+		}
+	}
+
+	public static final class Typed {
+		public final String type;
+		public final Object value;
+
+		Typed(String type, Object value) {
+			this.type = type;
+			this.value = value;
+		}
+	}
+
+	public static final class Instance {
+		public final int id;
+		public final String type;
+		public final List<Object> attributes;
+
+		Instance(int id, String type, List<Object> attributes) {
+			this.id = id;
+			this.type = type;
+			this.attributes = attributes;
+		}
+
+		public Object get(int i) {
+			return i < attributes.size() ? attributes.get(i) : null;
+		}
+
+		@Override
+		public String toString() {
+			return "#" + id + "=" + type + attributes;
+		}
+	}
+
+	/**
+	 * Tells which instances are kept.
+	 */
+	public interface Selector {
+		/**
+		 * @return true if the instance of the type (upper case) is parsed
+		 */
+		boolean parse(String type);
+
+		/**
+		 * @return true if the parsed instance is kept
+		 */
+		default boolean keep(Instance instance) {
+			return true;
+		}
+	}
+
+	public static Selector types(Set<String> types) {
+		return types::contains;
+	}
+
+	private final Reader in;
+	private int c;
+	private final StringBuilder sb = new StringBuilder();
+
+	private SpfReader(Reader in) throws IOException {
+		this.in = in;
+		this.c = in.read();
+	}
+
+	/**
+	 * @return the selected instances by id
+	 */
+	public static Map<Integer, Instance> read(File spf, Selector selector) throws IOException {
+		try (Reader r = new BufferedReader(
+				new InputStreamReader(Files.newInputStream(spf.toPath()), StandardCharsets.ISO_8859_1), 1 << 16)) {
+			return new SpfReader(r).readData(selector);
+		}
+	}
+
+	private void next() throws IOException {
+		c = in.read();
+	}
+
+	private void skipWhitespace() throws IOException {
+		while (true) {
+			if (c == ' ' || c == '\n' || c == '\r' || c == '\t') {
+				next();
+			} else if (c == '/') {
+				next();
+				if (c != '*')
+					throw new IOException("Unexpected '/'");
+				next();
+				int previous = 0;
+				while (c >= 0 && !(previous == '*' && c == '/')) {
+					previous = c;
+					next();
+				}
+				next();
+			} else {
+				return;
+			}
+		}
+	}
+
+	private String keyword() throws IOException {
+		sb.setLength(0);
+		while (c >= 0 && (Character.isLetterOrDigit(c) || c == '_' || c == '-')) {
+			sb.append(Character.toUpperCase((char) c));
+			next();
+		}
+		return sb.toString();
+	}
+
+	private Map<Integer, Instance> readData(Selector selector) throws IOException {
+		Map<Integer, Instance> instances = new HashMap<>();
+		// Skip the header up to DATA;
+		while (c >= 0) {
+			skipWhitespace();
+			if (c == '\'') {
+				skipString();
+				continue;
+			}
+			if (Character.isLetter(c)) {
+				if (keyword().equals("DATA")) {
+					skipWhitespace();
+					if (c == ';')
+						next();
+					break;
+				}
+				continue;
+			}
+			next();
+		}
+		while (c >= 0) {
+			skipWhitespace();
+			if (c != '#') {
+				// ENDSEC; END-ISO-10303-21; or an unexpected token
+				if (Character.isLetter(c) && keyword().equals("ENDSEC"))
+					break;
+				skipInstance();
+				continue;
+			}
+			next();
+			int id = integer();
+			skipWhitespace();
+			if (c != '=') {
+				skipInstance();
+				continue;
+			}
+			next();
+			skipWhitespace();
+			if (!Character.isLetter(c)) {
+				// A complex instance #1=(A()B());
+				skipInstance();
+				continue;
+			}
+			String type = keyword();
+			if (!selector.parse(type)) {
+				skipInstance();
+				continue;
+			}
+			skipWhitespace();
+			List<Object> attributes = list();
+			skipInstance();
+			Instance instance = new Instance(id, type, attributes);
+			if (selector.keep(instance))
+				instances.put(id, instance);
+		}
+		return instances;
+	}
+
+	private int integer() throws IOException {
+		int v = 0;
+		while (c >= '0' && c <= '9') {
+			v = v * 10 + (c - '0');
+			next();
+		}
+		return v;
+	}
+
+	/**
+	 * Skips to the character after the next ';' outside strings.
+	 */
+	private void skipInstance() throws IOException {
+		while (c >= 0 && c != ';') {
+			if (c == '\'')
+				skipString();
+			else
+				next();
+		}
+		next();
+	}
+
+	private void skipString() throws IOException {
+		next();
+		while (c >= 0) {
+			if (c == '\'') {
+				next();
+				if (c != '\'')
+					return;
+			}
+			next();
+		}
+	}
+
+	private String string() throws IOException {
+		sb.setLength(0);
+		next();
+		while (c >= 0) {
+			if (c == '\'') {
+				next();
+				if (c != '\'')
+					break;
+			}
+			sb.append((char) c);
+			next();
+		}
+		return sb.toString();
+	}
+
+	private List<Object> list() throws IOException {
+		List<Object> values = new ArrayList<>();
+		if (c != '(')
+			throw new IOException("'(' expected");
+		next();
+		skipWhitespace();
+		if (c == ')') {
+			next();
+			return values;
+		}
+		while (c >= 0) {
+			values.add(value());
+			skipWhitespace();
+			if (c == ',') {
+				next();
+			} else if (c == ')') {
+				next();
+				break;
+			} else {
+				throw new IOException("',' or ')' expected");
+			}
+		}
+		return values;
+	}
+
+	private Object value() throws IOException {
+		skipWhitespace();
+		switch (c) {
+		case '#':
+			next();
+			return new Ref(integer());
+		case '\'':
+			return string();
+		case '$':
+		case '*':
+			next();
+			return null;
+		case '(':
+			return list();
+		case '.': {
+			next();
+			sb.setLength(0);
+			while (c >= 0 && c != '.') {
+				sb.append((char) c);
+				next();
+			}
+			next();
+			return new Symbol(sb.toString());
+		}
+		case '"': {
+			// Binary
+			next();
+			while (c >= 0 && c != '"')
+				next();
+			next();
+			return null;
+		}
+		default:
+			if (Character.isLetter(c)) {
+				String type = keyword();
+				skipWhitespace();
+				List<Object> v = list();
+				return new Typed(type, v.isEmpty() ? null : v.get(0));
+			}
+			return number();
+		}
+	}
+
+	private Double number() throws IOException {
+		sb.setLength(0);
+		while (c >= 0 && (Character.isDigit(c) || c == '-' || c == '+' || c == '.' || c == 'E' || c == 'e')) {
+			sb.append((char) c);
+			next();
+		}
+		try {
+			return Double.valueOf(sb.toString());
+		} catch (NumberFormatException e) {
+			throw new IOException("Number expected: " + sb);
+		}
+	}
+}
@@ -17,7 +17,6 @@ package org.ifcopenshell;
  * along with this program.  If not, see {@literal<http://www.gnu.org/licenses/>}.
  *****************************************************************************/
 
-import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.IOException;
@@ -25,6 +24,7 @@ import java.io.InputStream;
 import java.io.OutputStream;
 import java.net.URISyntaxException;
 import java.net.URL;
+import java.nio.ByteBuffer;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
@@ -79,10 +79,48 @@ public class IfcGeomServerClient implements AutoCloseable {
 		this.applyLayersets = applyLayersets;
 	}
 
-	private Process process = null;
+	private IfcGeomServerSettings settings = IfcGeomServerSettings.defaults();
+
+	public IfcGeomServerSettings getSettings() {
+		return settings.copy();
+	}
+
+	/**
+	 * @param settings the flags and the deflection sent after the handshake,
+	 *                 on top of calculateQuantities and applyLayersets
+	 */
+	public void setSettings(IfcGeomServerSettings settings) throws RenderEngineException {
+		if (process != null) {
+			throw new RenderEngineException("Cannot be changed when running");
+		}
+		this.settings = settings.copy();
+	}
+
+	private volatile Process process = null;
 	private LittleEndianDataInputStream dis = null;
 	private LittleEndianDataOutputStream dos = null;
 	private boolean hasMore = false;
+	private final MessageBuffer messageBuffer = new MessageBuffer();
+	// Whether the normals, colours and material indices of the entities are decoded
+	private boolean readMeshAttributes = true;
+	// The entities whose meshes are not decoded, null for none
+	private MeshFilter meshFilter = null;
+
+	/**
+	 * Tells which entity meshes are skipped in the messages instead of decoded,
+	 * e.g. because the caller already has what it needs of the representation
+	 * for this placement.
+	 */
+	public interface MeshFilter {
+		/**
+		 * @param matrix the placement as it is in the message, the transpose of
+		 *               {@link IfcGeomServerClientEntity#getMatrix()}
+		 */
+		boolean skipMesh(String guid, int repId, double[] matrix);
+	}
+
+	private static final float[] NO_FLOATS = new float[0];
+	private static final int[] NO_INTS = new int[0];
 
 	private volatile boolean running = true;
 
@@ -234,6 +272,11 @@ public class IfcGeomServerClient implements AutoCloseable {
 	public void initialize() throws RenderEngineException {
 		try {
 			process = Runtime.getRuntime().exec(this.executableFilename.toAbsolutePath().toString());
+			if (!running) {
+				// kill() came before the process existed
+				process.destroyForcibly();
+				throw new RenderEngineException("IfcGeomServer was killed while starting");
+			}
 			dos = new LittleEndianDataOutputStream(process.getOutputStream());
 			dis = new LittleEndianDataInputStream(process.getInputStream());
 
@@ -260,6 +303,8 @@ public class IfcGeomServerClient implements AutoCloseable {
 				Setting s = new Setting(Setting.SettingId.APPLY_LAYERSETS, true);
 				s.write(dos);
 			}
+
+			settings.write(dos);
 		} catch (IOException e) {
 			throw new RenderEngineException(e);
 		}
@@ -333,7 +378,7 @@ public class IfcGeomServerClient implements AutoCloseable {
 			// avoided I think, why not send the original s variable to
 			// write_contents?
 			s.writeInt(oss.size());
-			s.write(oss.toByteArray());
+			oss.writeTo(s);
 			s.flush();
 		}
 
@@ -468,13 +513,32 @@ public class IfcGeomServerClient implements AutoCloseable {
 		}
 
 		@Override
-		void write_contents(LittleEndianDataOutputStream s) throws IOException {
+		void write(LittleEndianDataOutputStream s) throws IOException {
+			// The model goes to the pipe directly instead of through the
+			// intermediate buffer of Command.write
+			byte[] data = null;
+			int size;
 			if (length == -1) {
 				// This is now the point where memory problems will arise for
 				// large models
-				ByteArrayOutputStream baos = new ByteArrayOutputStream();
-				IOUtils.copy(ifcInputStream, baos);
-				writeStringBinary(s, baos.toByteArray());
+				data = IOUtils.toByteArray(ifcInputStream);
+				size = data.length;
+			} else {
+				size = (int) length;
+			}
+			s.writeInt(iden);
+			s.writeInt(4 + size + (4 - size % 4) % 4);
+			if (data != null)
+				writeStringBinary(s, data);
+			else
+				writeStringBinary(s, ifcInputStream, size);
+			s.flush();
+		}
+
+		@Override
+		void write_contents(LittleEndianDataOutputStream s) throws IOException {
+			if (length == -1) {
+				writeStringBinary(s, IOUtils.toByteArray(ifcInputStream));
 			} else {
 				writeStringBinary(s, ifcInputStream, (int) length);
 			}
@@ -527,28 +591,45 @@ public class IfcGeomServerClient implements AutoCloseable {
 
 	static class Entity extends Command {
 		private IfcGeomServerClientEntity entity;
+		private final MessageBuffer buffer;
+		private final boolean readMeshAttributes;
+		private final MeshFilter meshFilter;
+
+		Entity(MessageBuffer buffer, boolean readMeshAttributes) {
+			this(buffer, readMeshAttributes, null);
+		}
 
-		Entity() {
+		Entity(MessageBuffer buffer, boolean readMeshAttributes, MeshFilter meshFilter) {
 			super(ENTITY);
+			this.buffer = buffer;
+			this.readMeshAttributes = readMeshAttributes;
+			this.meshFilter = meshFilter;
 		}
 
 		@Override
 		void read_contents(LittleEndianDataInputStream s0) throws IOException {
-			byte[] message = new byte[len];
-			s0.readFully(message, 0, len);
-			ByteArrayInputStream bis = new ByteArrayInputStream(message);
-			LittleEndianDataInputStream s = new LittleEndianDataInputStream(bis);
-			entity = new IfcGeomServerClientEntity(s.readInt(), readString(s), readString(s), readString(s), s.readInt(), readDoubleArray(s), s.readInt(), readFloatArray(s), readFloatArray(s),
-					readIntArray(s), readFloatArray(s), readIntArray(s), readRemainder(bis));
-		}
-
-		private String readRemainder(ByteArrayInputStream bis) {
-			if (bis.available() == 0) {
-				return null;
-			}
-			byte[] remainder = new byte[bis.available()];
-			bis.read(remainder, 0, remainder.length);
-			return new String(remainder);
+			ByteBuffer b = buffer.read(s0, len);
+			int id = b.getInt();
+			String guid = MessageBuffer.getString(b);
+			String name = MessageBuffer.getString(b);
+			String type = MessageBuffer.getString(b);
+			int parentId = b.getInt();
+			double[] matrix = MessageBuffer.getDoubleArray(b);
+			int repId = b.getInt();
+			boolean readMesh = meshFilter == null || !meshFilter.skipMesh(guid, repId, matrix);
+			boolean readAttributes = readMesh && readMeshAttributes;
+			float[] positions = readMesh ? MessageBuffer.getFloatArray(b) : skip(b, NO_FLOATS);
+			float[] normals = readAttributes ? MessageBuffer.getFloatArray(b) : skip(b, NO_FLOATS);
+			int[] indices = readMesh ? MessageBuffer.getIntArray(b) : skip(b, NO_INTS);
+			float[] colors = readAttributes ? MessageBuffer.getFloatArray(b) : skip(b, NO_FLOATS);
+			int[] materialIndices = readAttributes ? MessageBuffer.getIntArray(b) : skip(b, NO_INTS);
+			entity = new IfcGeomServerClientEntity(id, guid, name, type, parentId, matrix, repId, positions, normals,
+					indices, colors, materialIndices, MessageBuffer.getRemainder(b));
+		}
+
+		private static <T> T skip(ByteBuffer b, T empty) {
+			MessageBuffer.skipArray(b);
+			return empty;
 		}
 
 		public IfcGeomServerClientEntity getEntity() {
@@ -637,8 +718,12 @@ public class IfcGeomServerClient implements AutoCloseable {
 		}
 
 		Setting(SettingId i, boolean b) {
+			this(i.getId(), b);
+		}
+
+		Setting(int id, boolean b) {
 			super(SETTING);
-			this.id = i.getId();
+			this.id = id;
 			this.value = b ? 1 : 0;
 		}
 
@@ -742,7 +827,7 @@ public class IfcGeomServerClient implements AutoCloseable {
 				LOGGER.error("Invalid command sequence encountered");
 				throw new IOException();
 			}
-			Entity e = new Entity();
+			Entity e = new Entity(messageBuffer, readMeshAttributes, meshFilter);
 			e.read(dis);
 
 			Next n = new Next();
@@ -768,6 +853,51 @@ public class IfcGeomServerClient implements AutoCloseable {
 		return running;
 	}
 
+	/**
+	 * @return true if the IfcGeomServer process has been started and has not
+	 *         exited
+	 */
+	public boolean isAlive() {
+		Process p = process;
+		return running && p != null && p.isAlive();
+	}
+
+	/**
+	 * Kills the IfcGeomServer process without the GET_LOG/BYE exchange. Meant for
+	 * a process that does not answer anymore; a pending read fails and ends the
+	 * entity loop or the handshake of {@link #initialize()}.
+	 */
+	public void kill() {
+		running = false;
+		hasMore = false;
+		Process p = process;
+		if (p != null) {
+			p.destroyForcibly();
+		}
+	}
+
+	public boolean doesReadMeshAttributes() {
+		return readMeshAttributes;
+	}
+
+	/**
+	 * @param readMeshAttributes if false, the normals, colours and material
+	 *                           indices are skipped in the messages and the
+	 *                           entities get empty arrays for them
+	 */
+	public void setReadMeshAttributes(boolean readMeshAttributes) {
+		this.readMeshAttributes = readMeshAttributes;
+	}
+
+	/**
+	 * @param meshFilter tells for a GUID and a repId whether the mesh of the
+	 *                   entity is skipped in the message. The entity then has
+	 *                   empty mesh arrays. null decodes all the meshes.
+	 */
+	public void setMeshFilter(MeshFilter meshFilter) {
+		this.meshFilter = meshFilter;
+	}
+
 	public boolean hasNext() {
 		return hasMore;
 	}
@@ -776,6 +906,13 @@ public class IfcGeomServerClient implements AutoCloseable {
 		return VERSION;
 	}
 
+	/**
+	 * @return the IfcOpenShell version that the HELLO handshake accepts
+	 */
+	public static String getRequiredVersion() {
+		return VERSION;
+	}
+
 	public GregorianCalendar getBuildDateTime() {
 		return buildDateTime;
 	}
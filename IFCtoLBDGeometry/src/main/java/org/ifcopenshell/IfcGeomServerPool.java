@@ -0,0 +1,329 @@
+package org.ifcopenshell;
+
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.bimserver.plugins.renderengine.RenderEngineException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/*
+ *  Copyright (c) 2020 Jyrki Oraskari (Jyrki.Oraskari@gmail.f)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+/**
+ * A pool of started IfcGeomServer processes. A process is started and checked
+ * with the HELLO handshake (the version check of
+ * {@link IfcGeomServerClient#initialize()}) before it is handed out, so the
+ * start-up is off the conversion path when the pool is warm. A process that
+ * does not answer the handshake within the timeout is killed.
+ *
+ * A borrowed process has to be given back with {@link #release}. It is retired
+ * after max_models models, when it has died or failed, and it is killed when it
+ * is held longer than the timeout. A retired process is replaced with a fresh
+ * one in the background.
+ *
+ * A borrow does not wait for a busy process: when all the pooled processes are
+ * lent, an extra process is started for the caller and closed when it is
+ * given back, so conversions beyond the pool size still run in parallel.
+ */
+public class IfcGeomServerPool implements AutoCloseable {
+	private static final Logger LOGGER = LoggerFactory.getLogger(IfcGeomServerPool.class);
+
+	private final Path executableFilename;
+	private final int size;
+	private final int max_models;
+	private final long timeout_ms;
+	private final IfcGeomServerSettings settings;
+
+	private final LinkedBlockingDeque<IfcGeomServerClient> idle = new LinkedBlockingDeque<>();
+	private final Map<IfcGeomServerClient, Lease> leases = new ConcurrentHashMap<>();
+	private final Map<IfcGeomServerClient, Integer> model_counts = new ConcurrentHashMap<>();
+	// The pooled processes that are not lent
+	private final Semaphore permits;
+	// Lent processes started beyond the pool size, closed on release
+	private final Set<IfcGeomServerClient> overflow = ConcurrentHashMap.newKeySet();
+
+	// Background starts in progress; borrow waits for them instead of starting one more
+	private final AtomicInteger starting = new AtomicInteger();
+	// Processes in the HELLO handshake, killed by close()
+	private final Set<IfcGeomServerClient> handshaking = ConcurrentHashMap.newKeySet();
+	private static final long STARTUP_WAIT_MS = 30000;
+
+	private final ExecutorService starter;
+	private final ScheduledExecutorService watchdog;
+	private volatile boolean closed = false;
+
+	private static class Lease {
+		final ScheduledFuture<?> timeout;
+		volatile boolean timed_out = false;
+
+		Lease(ScheduledFuture<?> timeout) {
+			this.timeout = timeout;
+		}
+	}
+
+	/**
+	 * @param executableFilename  the IfcGeomServer executable
+	 * @param size                the number of processes kept started
+	 * @param max_models          the number of models after which a process is
+	 *                            replaced
+	 * @param timeout_ms          the time a process may be borrowed before it is
+	 *                            killed. It also limits the HELLO handshake of a
+	 *                            starting process.
+	 * @param settings            the IfcGeomServer settings of the processes
+	 */
+	public IfcGeomServerPool(Path executableFilename, int size, int max_models, long timeout_ms,
+			IfcGeomServerSettings settings) {
+		if (size < 1 || max_models < 1 || timeout_ms < 1)
+			throw new IllegalArgumentException("The pool size, model count and timeout must be positive");
+		this.executableFilename = executableFilename;
+		this.size = size;
+		this.max_models = max_models;
+		this.timeout_ms = timeout_ms;
+		this.settings = settings.copy();
+		this.permits = new Semaphore(size, true);
+		this.starter = Executors.newSingleThreadExecutor(daemon("IfcGeomServer starter"));
+		this.watchdog = Executors.newSingleThreadScheduledExecutor(daemon("IfcGeomServer watchdog"));
+		for (int i = 0; i < size; i++)
+			startInBackground();
+	}
+
+	public IfcGeomServerPool(Path executableFilename, int size, int max_models, long timeout_ms) {
+		this(executableFilename, size, max_models, timeout_ms, IfcGeomServerSettings.defaults());
+	}
+
+	private static ThreadFactory daemon(String name) {
+		return r -> {
+			Thread t = new Thread(r, name);
+			t.setDaemon(true);
+			return t;
+		};
+	}
+
+	/**
+	 * Starts a process and waits for its HELLO handshake at most timeout_ms; a
+	 * process that does not answer in time is killed.
+	 */
+	private IfcGeomServerClient start() throws RenderEngineException {
+		IfcGeomServerClient client = new IfcGeomServerClient(executableFilename);
+		client.setSettings(settings);
+		ScheduledFuture<?> kill;
+		try {
+			kill = watchdog.schedule(() -> {
+				LOGGER.error(String.format("IfcGeomServer did not answer the handshake in %d ms, killing it", timeout_ms));
+				client.kill();
+			}, timeout_ms, TimeUnit.MILLISECONDS);
+		} catch (RejectedExecutionException e) {
+			throw new RenderEngineException("The IfcGeomServer pool is closed");
+		}
+		handshaking.add(client);
+		try {
+			if (closed)
+				client.kill();
+			client.initialize();
+		} catch (RenderEngineException | RuntimeException e) {
+			client.kill();
+			throw e;
+		} finally {
+			kill.cancel(false);
+			handshaking.remove(client);
+		}
+		if (closed || !client.isAlive()) {
+			retire(client);
+			throw new RenderEngineException("IfcGeomServer did not answer the HELLO handshake: " + executableFilename);
+		}
+		return client;
+	}
+
+	private void startInBackground() {
+		if (closed)
+			return;
+		starting.incrementAndGet();
+		try {
+			starter.execute(() -> {
+				try {
+					if (closed || idle.size() + leases.size() >= size)
+						return;
+					idle.offer(start());
+				} catch (RenderEngineException e) {
+					LOGGER.error("Could not start IfcGeomServer", e);
+				} finally {
+					starting.decrementAndGet();
+				}
+			});
+		} catch (RejectedExecutionException e) {
+			// The pool is closed
+			starting.decrementAndGet();
+		}
+	}
+
+	/**
+	 * Hands out a free pooled process. A started one is used when there is one
+	 * or one is being started, otherwise a process is started on the calling
+	 * thread. When all the pooled processes are lent, an extra process is started
+	 * on the calling thread instead of waiting for one to be given back.
+	 *
+	 * @return a process that has loaded no model or fewer than max_models models
+	 * @throws RenderEngineException if no process could be started
+	 */
+	public IfcGeomServerClient borrow() throws RenderEngineException {
+		if (closed)
+			throw new RenderEngineException("The IfcGeomServer pool is closed");
+		IfcGeomServerClient client;
+		if (permits.tryAcquire()) {
+			client = borrowPooled();
+		} else {
+			client = start();
+			overflow.add(client);
+		}
+		final IfcGeomServerClient leased = client;
+		leases.put(leased, new Lease(watchdog.schedule(() -> {
+			Lease l = leases.get(leased);
+			if (l != null)
+				l.timed_out = true;
+			LOGGER.error(String.format("IfcGeomServer did not finish in %d ms, killing it", timeout_ms));
+			leased.kill();
+		}, timeout_ms, TimeUnit.MILLISECONDS)));
+		return leased;
+	}
+
+	/**
+	 * Called with a permit, which is given back if no process is handed out.
+	 */
+	private IfcGeomServerClient borrowPooled() throws RenderEngineException {
+		IfcGeomServerClient client = null;
+		try {
+			while (client == null) {
+				IfcGeomServerClient c = takeIdle();
+				if (c == null)
+					break;
+				if (c.isAlive())
+					client = c;
+				else
+					retire(c);
+			}
+			if (client == null)
+				client = start();
+			return client;
+		} catch (InterruptedException e) {
+			permits.release();
+			Thread.currentThread().interrupt();
+			throw new RenderEngineException(e);
+		} catch (RenderEngineException | RuntimeException e) {
+			permits.release();
+			throw e;
+		}
+	}
+
+	private IfcGeomServerClient takeIdle() throws InterruptedException {
+		IfcGeomServerClient c = idle.poll();
+		long deadline = System.currentTimeMillis() + STARTUP_WAIT_MS;
+		while (c == null && starting.get() > 0 && System.currentTimeMillis() < deadline)
+			c = idle.poll(100, TimeUnit.MILLISECONDS);
+		return c;
+	}
+
+	/**
+	 * Gives a borrowed process back. A pooled process goes back to the pool if it
+	 * is healthy and has not reached max_models models; otherwise it is closed
+	 * and a new one is started in the background. An extra process is closed.
+	 *
+	 * @param client a process from {@link #borrow()}
+	 */
+	public void release(IfcGeomServerClient client) {
+		Lease lease = leases.remove(client);
+		if (lease == null)
+			return;
+		lease.timeout.cancel(false);
+		if (overflow.remove(client)) {
+			retire(client);
+			return;
+		}
+		client.setReadMeshAttributes(true);
+		client.setMeshFilter(null);
+		int models = model_counts.merge(client, 1, Integer::sum);
+		try {
+			if (!closed && !lease.timed_out && client.isAlive() && !client.hasNext() && models < max_models) {
+				idle.offerFirst(client);
+			} else {
+				retire(client);
+				startInBackground();
+			}
+		} finally {
+			permits.release();
+		}
+	}
+
+	private void retire(IfcGeomServerClient client) {
+		model_counts.remove(client);
+		Runnable close = () -> {
+			try {
+				client.close();
+			} catch (RenderEngineException e) {
+				LOGGER.debug("IfcGeomServer exit", e);
+			}
+		};
+		try {
+			starter.execute(close);
+		} catch (RejectedExecutionException e) {
+			client.kill();
+		}
+	}
+
+	public IfcGeomServerSettings getSettings() {
+		return settings.copy();
+	}
+
+	public int getSize() {
+		return size;
+	}
+
+	/**
+	 * @return the number of started processes waiting in the pool
+	 */
+	public int getIdleCount() {
+		return idle.size();
+	}
+
+	/**
+	 * Closes the waiting processes and kills the borrowed and the starting ones.
+	 */
+	@Override
+	public void close() {
+		closed = true;
+		IfcGeomServerClient c;
+		while ((c = idle.poll()) != null)
+			retire(c);
+		for (IfcGeomServerClient leased : leases.keySet())
+			leased.kill();
+		for (IfcGeomServerClient started : handshaking)
+			started.kill();
+		starter.shutdown();
+		watchdog.shutdownNow();
+	}
+}
@@ -0,0 +1,126 @@
+package org.ifcopenshell;
+
+import java.io.IOException;
+import java.util.EnumMap;
+import java.util.Map;
+
+import com.google.common.io.LittleEndianDataOutputStream;
+
+/*
+ *  Copyright (c) 2020 Jyrki Oraskari (Jyrki.Oraskari@gmail.f)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+/**
+ * The IfcOpenShell iterator settings and the deflection tolerance sent to an
+ * IfcGeomServer process after the HELLO handshake. Only the flags that are set
+ * explicitly are sent; the others keep the IfcGeomServer defaults. The settings
+ * have to be in place before the process is started.
+ */
+public class IfcGeomServerSettings {
+
+	/**
+	 * The IfcGeom::IteratorSettings flags of IfcOpenShell 0.6.
+	 */
+	public enum Flag {
+		WELD_VERTICES(1),
+		USE_WORLD_COORDS(1 << 1),
+		CALCULATE_QUANTITIES(1 << 4),
+		DISABLE_OPENING_SUBTRACTIONS(1 << 6),
+		APPLY_DEFAULT_MATERIALS(1 << 8),
+		NO_NORMALS(1 << 11),
+		APPLY_LAYERSETS(1 << 13);
+
+		private final int id;
+
+		Flag(int id) {
+			this.id = id;
+		}
+
+		int getId() {
+			return id;
+		}
+	}
+
+	// The deflection tolerance of the bounding box preset, in model units. A
+	// curved surface is at most this far inside its tessellation's box.
+	public static final double BOUNDING_BOX_DEFLECTION = 0.01;
+
+	private final Map<Flag, Boolean> flags = new EnumMap<>(Flag.class);
+	private Double deflection = null;
+
+	/**
+	 * @return settings that send nothing, so the IfcGeomServer defaults apply
+	 */
+	public static IfcGeomServerSettings defaults() {
+		return new IfcGeomServerSettings();
+	}
+
+	/**
+	 * @return settings for when only the bounding boxes are used: welded
+	 *         vertices, no normals, no default materials and a coarse deflection
+	 */
+	public static IfcGeomServerSettings boundingBoxes() {
+		return new IfcGeomServerSettings().set(Flag.WELD_VERTICES, true).set(Flag.NO_NORMALS, true)
+				.set(Flag.APPLY_DEFAULT_MATERIALS, false).setDeflection(BOUNDING_BOX_DEFLECTION);
+	}
+
+	public IfcGeomServerSettings set(Flag flag, boolean value) {
+		flags.put(flag, value);
+		return this;
+	}
+
+	/**
+	 * @return the value sent for the flag, null if it is not sent
+	 */
+	public Boolean get(Flag flag) {
+		return flags.get(flag);
+	}
+
+	public IfcGeomServerSettings setDeflection(double deflection) {
+		this.deflection = deflection;
+		return this;
+	}
+
+	/**
+	 * @return the deflection tolerance sent, null if it is not sent
+	 */
+	public Double getDeflection() {
+		return deflection;
+	}
+
+	public IfcGeomServerSettings copy() {
+		IfcGeomServerSettings c = new IfcGeomServerSettings();
+		c.flags.putAll(flags);
+		c.deflection = deflection;
+		return c;
+	}
+
+	/**
+	 * @return the flags and the deflection in a fixed form, e.g. for cache keys
+	 */
+	@Override
+	public String toString() {
+		return "IfcGeomServerSettings" + flags + " deflection=" + deflection;
+	}
+
+	void write(LittleEndianDataOutputStream dos) throws IOException {
+		for (Map.Entry<Flag, Boolean> e : flags.entrySet()) {
+			new IfcGeomServerClient.Setting(e.getKey().getId(), e.getValue()).write(dos);
+		}
+		if (deflection != null) {
+			new IfcGeomServerClient.Deflection(deflection).write(dos);
+		}
+	}
+}
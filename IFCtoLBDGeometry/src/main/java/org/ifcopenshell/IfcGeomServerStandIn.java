@@ -0,0 +1,547 @@
+package org.ifcopenshell;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.FileDescriptor;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.PrintWriter;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.attribute.PosixFilePermission;
+import java.util.EnumSet;
+import java.util.concurrent.locks.LockSupport;
+
+/*
+ *  Copyright (c) 2020 Jyrki Oraskari (Jyrki.Oraskari@gmail.f)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+/**
+ * A pure Java stand-in for the IfcGeomServer executable. It speaks the same
+ * binary protocol on stdin/stdout (HELLO, IFC_MODEL, GET, ENTITY, MORE, NEXT,
+ * GET_LOG, LOG, BYE, and it accepts SETTING and DEFLECTION), but it does not
+ * look at the IFC model: it sends a synthetic or a recorded entity stream for
+ * every model. This makes the client, the pool and the bounding box code
+ * measurable and testable without the platform binary.
+ *
+ * The client starts an executable without arguments, so the options are put
+ * in a launcher script made by {@link #createLauncher}. The options are:
+ * <ul>
+ * <li>--entities n: the number of synthetic entities per model (1000)</li>
+ * <li>--vertices n: the vertices of a synthetic mesh, a grid (25)</li>
+ * <li>--representations n: the distinct repIds, shared round robin (as many
+ * as entities)</li>
+ * <li>--rotated: the synthetic placements are rotated about z</li>
+ * <li>--entity-delay-us n: the time spent on each entity, to set the rate</li>
+ * <li>--startup-ms n: the time before HELLO</li>
+ * <li>--load-ms n: the time spent on the model before the first MORE</li>
+ * <li>--hang: never answer IFC_MODEL, e.g. for the pool timeout</li>
+ * <li>--version s: the version sent in HELLO</li>
+ * <li>--replay file: send the entities of a recording instead</li>
+ * <li>--record file --server executable: run the real IfcGeomServer and
+ * record its entity messages while passing all the messages through</li>
+ * </ul>
+ * A recording is the magic IGSR followed by the length and the bytes of each
+ * ENTITY message. Nothing but the protocol goes to stdout; the messages of the
+ * stand-in go to stderr.
+ */
+public class IfcGeomServerStandIn {
+	private static final int HELLO = 0xff00;
+	private static final int IFC_MODEL = HELLO + 1;
+	private static final int GET = IFC_MODEL + 1;
+	private static final int ENTITY = GET + 1;
+	private static final int MORE = ENTITY + 1;
+	private static final int NEXT = MORE + 1;
+	private static final int BYE = NEXT + 1;
+	private static final int GET_LOG = BYE + 1;
+	private static final int LOG = GET_LOG + 1;
+	private static final int DEFLECTION = LOG + 1;
+	private static final int SETTING = DEFLECTION + 1;
+
+	private static final int RECORDING_MAGIC = 0x52534749; // "IGSR"
+
+	// IfcGeom::IteratorSettings::NO_NORMALS
+	private static final int NO_NORMALS_SETTING = 1 << 11;
+
+	/**
+	 * The entity messages sent for a model.
+	 */
+	interface EntitySource {
+		/**
+		 * Starts over for the next model.
+		 */
+		void reset() throws IOException;
+
+		/**
+		 * @return the next ENTITY message, positioned at the start, null at the
+		 *         end of the stream
+		 */
+		ByteBuffer next() throws IOException;
+	}
+
+	/**
+	 * Grid meshes placed along the x axis, one per entity.
+	 */
+	static class SyntheticSource implements EntitySource {
+		private final int entities;
+		private final int representations;
+		private final boolean rotated;
+		private final int side;
+		private boolean normals = true;
+		private int index;
+		private ByteBuffer buffer = ByteBuffer.allocate(1 << 16).order(ByteOrder.LITTLE_ENDIAN);
+
+		SyntheticSource(int entities, int vertices, int representations, boolean rotated) {
+			this.entities = entities;
+			this.representations = Math.max(1, representations);
+			this.rotated = rotated;
+			this.side = Math.max(2, (int) Math.ceil(Math.sqrt(vertices)));
+		}
+
+		void setNormals(boolean normals) {
+			this.normals = normals;
+		}
+
+		@Override
+		public void reset() {
+			index = 0;
+		}
+
+		@Override
+		public ByteBuffer next() {
+			if (index >= entities)
+				return null;
+			int i = index++;
+			int rep = i % representations;
+			int vertices = side * side;
+			int triangles = (side - 1) * (side - 1) * 2;
+			int size = 512 + vertices * 3 * 4 * 2 + triangles * 3 * 4 + triangles * 4;
+			if (buffer.capacity() < size)
+				buffer = ByteBuffer.allocate(size).order(ByteOrder.LITTLE_ENDIAN);
+			ByteBuffer b = buffer;
+			b.clear();
+			b.putInt(i + 1);
+			putString(b, guid(i));
+			putString(b, "Element " + (i + 1));
+			putString(b, "IfcBuildingElementProxy");
+			b.putInt(0);
+			// The matrix is row-major, the client transposes it
+			double a = rotated ? Math.toRadians(15 + i % 60) : 0;
+			double c = Math.cos(a), s = Math.sin(a);
+			b.putInt(16 * 8);
+			double[] m = { c, -s, 0, i * 2.0, s, c, 0, (i % 10) * 0.5, 0, 0, 1, 0, 0, 0, 0, 1 };
+			for (double d : m)
+				b.putDouble(d);
+			b.putInt(rep + 1);
+
+			// Each representation has its own size
+			float scale = 0.1f * (1 + rep % 7) / (side - 1);
+			b.putInt(vertices * 3 * 4);
+			for (int y = 0; y < side; y++)
+				for (int x = 0; x < side; x++) {
+					b.putFloat(x * scale);
+					b.putFloat(y * scale);
+					b.putFloat((float) Math.sin(x + y) * scale);
+				}
+			b.putInt(normals ? vertices * 3 * 4 : 0);
+			if (normals)
+				for (int v = 0; v < vertices; v++) {
+					b.putFloat(0);
+					b.putFloat(0);
+					b.putFloat(1);
+				}
+			b.putInt(triangles * 3 * 4);
+			for (int y = 0; y < side - 1; y++)
+				for (int x = 0; x < side - 1; x++) {
+					int v = y * side + x;
+					b.putInt(v);
+					b.putInt(v + 1);
+					b.putInt(v + side);
+					b.putInt(v + 1);
+					b.putInt(v + side + 1);
+					b.putInt(v + side);
+				}
+			b.putInt(4 * 4);
+			b.putFloat(0.8f);
+			b.putFloat(0.8f);
+			b.putFloat(0.8f);
+			b.putFloat(1);
+			b.putInt(triangles * 4);
+			for (int t = 0; t < triangles; t++)
+				b.putInt(0);
+			b.flip();
+			return b;
+		}
+
+		/**
+		 * @return a 22 character id in the IFC base64 alphabet
+		 */
+		static String guid(int i) {
+			final String chars = "0123456789ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz_$";
+			char[] g = new char[22];
+			long v = i;
+			for (int k = 21; k >= 0; k--) {
+				g[k] = chars.charAt((int) (v & 63));
+				v >>>= 6;
+			}
+			return new String(g);
+		}
+	}
+
+	/**
+	 * The ENTITY messages of a recording.
+	 */
+	static class ReplaySource implements EntitySource {
+		private final Path recording;
+		private DataInputStream in;
+		private ByteBuffer buffer = ByteBuffer.allocate(1 << 16).order(ByteOrder.LITTLE_ENDIAN);
+
+		ReplaySource(Path recording) {
+			this.recording = recording;
+		}
+
+		@Override
+		public void reset() throws IOException {
+			if (in != null)
+				in.close();
+			in = new DataInputStream(new BufferedInputStream(Files.newInputStream(recording), 1 << 16));
+			if (readInt(in) != RECORDING_MAGIC)
+				throw new IOException("Not a recording: " + recording);
+		}
+
+		@Override
+		public ByteBuffer next() throws IOException {
+			int len;
+			try {
+				len = readInt(in);
+			} catch (EOFException e) {
+				return null;
+			}
+			if (buffer.capacity() < len)
+				buffer = ByteBuffer.allocate(len).order(ByteOrder.LITTLE_ENDIAN);
+			buffer.clear();
+			in.readFully(buffer.array(), 0, len);
+			buffer.limit(len);
+			return buffer;
+		}
+	}
+
+	private EntitySource source;
+	private SyntheticSource synthetic;
+	private long entity_delay_ns = 0;
+	private long startup_ms = 0;
+	private long load_ms = 0;
+	private boolean hang = false;
+	private String version = "IfcOpenShell-0.6.0a1-0";
+	private int models = 0;
+	private int sent = 0;
+
+	private final DataInputStream in;
+	private final DataOutputStream out;
+	private final ByteBuffer header = ByteBuffer.allocate(8).order(ByteOrder.LITTLE_ENDIAN);
+
+	IfcGeomServerStandIn(InputStream in, OutputStream out) {
+		this.in = new DataInputStream(new BufferedInputStream(in, 1 << 16));
+		this.out = new DataOutputStream(new BufferedOutputStream(out, 1 << 16));
+	}
+
+	private void parse(String[] args) {
+		int entities = 1000, vertices = 25, representations = -1;
+		boolean rotated = false;
+		Path replay = null;
+		for (int i = 0; i < args.length; i++) {
+			switch (args[i]) {
+			case "--entities":
+				entities = Integer.parseInt(args[++i]);
+				break;
+			case "--vertices":
+				vertices = Integer.parseInt(args[++i]);
+				break;
+			case "--representations":
+				representations = Integer.parseInt(args[++i]);
+				break;
+			case "--rotated":
+				rotated = true;
+				break;
+			case "--entity-delay-us":
+				entity_delay_ns = Long.parseLong(args[++i]) * 1000;
+				break;
+			case "--startup-ms":
+				startup_ms = Long.parseLong(args[++i]);
+				break;
+			case "--load-ms":
+				load_ms = Long.parseLong(args[++i]);
+				break;
+			case "--hang":
+				hang = true;
+				break;
+			case "--version":
+				version = args[++i];
+				break;
+			case "--replay":
+				replay = Paths.get(args[++i]);
+				break;
+			default:
+				throw new IllegalArgumentException("Unknown option: " + args[i]);
+			}
+		}
+		if (replay != null) {
+			source = new ReplaySource(replay);
+		} else {
+			synthetic = new SyntheticSource(entities, vertices, representations < 0 ? entities : representations,
+					rotated);
+			source = synthetic;
+		}
+	}
+
+	/**
+	 * Serves the client until BYE or the end of stdin.
+	 */
+	void serve() throws IOException {
+		sleep(startup_ms);
+		send(HELLO, string(version));
+		ByteBuffer current = null;
+		while (true) {
+			int command;
+			int len;
+			try {
+				command = readInt(in);
+				len = readInt(in);
+			} catch (EOFException e) {
+				return;
+			}
+			switch (command) {
+			case IFC_MODEL:
+				in.skipBytes(len);
+				models++;
+				if (hang) {
+					sleep(Long.MAX_VALUE);
+				}
+				sleep(load_ms);
+				source.reset();
+				current = source.next();
+				sendMore(current != null);
+				break;
+			case GET:
+				in.skipBytes(len);
+				if (current == null)
+					throw new IOException("GET after the last entity");
+				sleep(entity_delay_ns / 1000000, (int) (entity_delay_ns % 1000000));
+				send(ENTITY, current);
+				sent++;
+				break;
+			case NEXT:
+				in.skipBytes(len);
+				current = source.next();
+				sendMore(current != null);
+				break;
+			case SETTING: {
+				int id = readInt(in);
+				int value = readInt(in);
+				in.skipBytes(len - 8);
+				if (id == NO_NORMALS_SETTING && synthetic != null)
+					synthetic.setNormals(value == 0);
+				break;
+			}
+			case DEFLECTION:
+				in.skipBytes(len);
+				break;
+			case GET_LOG:
+				in.skipBytes(len);
+				send(LOG, string(String.format("IfcGeomServer stand-in: %d models, %d entities", models, sent)));
+				break;
+			case BYE:
+				in.skipBytes(len);
+				send(BYE, ByteBuffer.allocate(0));
+				return;
+			default:
+				throw new IOException(String.format("Unknown command 0x%x", command));
+			}
+		}
+	}
+
+	private void sendMore(boolean more) throws IOException {
+		ByteBuffer b = ByteBuffer.allocate(4).order(ByteOrder.LITTLE_ENDIAN);
+		b.putInt(more ? 1 : 0);
+		b.flip();
+		send(MORE, b);
+	}
+
+	private void send(int command, ByteBuffer payload) throws IOException {
+		header.clear();
+		header.putInt(command);
+		header.putInt(payload.remaining());
+		out.write(header.array(), 0, 8);
+		out.write(payload.array(), payload.arrayOffset() + payload.position(), payload.remaining());
+		out.flush();
+	}
+
+	private static ByteBuffer string(String s) {
+		byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+		ByteBuffer b = ByteBuffer.allocate(4 + bytes.length + 3).order(ByteOrder.LITTLE_ENDIAN);
+		putString(b, s);
+		b.flip();
+		return b;
+	}
+
+	private static void putString(ByteBuffer b, String s) {
+		byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+		b.putInt(bytes.length);
+		b.put(bytes);
+		for (int len = bytes.length; len % 4 != 0; len++)
+			b.put((byte) 0);
+	}
+
+	private static int readInt(DataInputStream in) throws IOException {
+		return Integer.reverseBytes(in.readInt());
+	}
+
+	private static void sleep(long ms) {
+		sleep(ms, 0);
+	}
+
+	private static void sleep(long ms, int ns) {
+		if (ms <= 0 && ns <= 0)
+			return;
+		if (ms > 0) {
+			try {
+				Thread.sleep(ms);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+		}
+		if (ns > 0)
+			LockSupport.parkNanos(ns);
+	}
+
+	/**
+	 * Runs the real IfcGeomServer, passes the messages through in both
+	 * directions and writes the ENTITY messages to the recording.
+	 */
+	private static int record(Path recording, Path server, InputStream client_in, OutputStream client_out)
+			throws IOException, InterruptedException {
+		Process process = new ProcessBuilder(server.toAbsolutePath().toString())
+				.redirectError(ProcessBuilder.Redirect.INHERIT).start();
+		Thread requests = new Thread(() -> {
+			byte[] buffer = new byte[1 << 16];
+			try (OutputStream to_server = process.getOutputStream()) {
+				int n;
+				while ((n = client_in.read(buffer)) > 0) {
+					to_server.write(buffer, 0, n);
+					to_server.flush();
+				}
+			} catch (IOException e) {
+				// The server has exited
+			}
+		}, "IfcGeomServer stand-in requests");
+		requests.setDaemon(true);
+		requests.start();
+
+		try (DataInputStream from_server = new DataInputStream(
+				new BufferedInputStream(process.getInputStream(), 1 << 16));
+				DataOutputStream to_client = new DataOutputStream(new BufferedOutputStream(client_out, 1 << 16));
+				DataOutputStream record = new DataOutputStream(
+						new BufferedOutputStream(Files.newOutputStream(recording), 1 << 16))) {
+			record.writeInt(Integer.reverseBytes(RECORDING_MAGIC));
+			byte[] payload = new byte[1 << 16];
+			while (true) {
+				int command, len;
+				try {
+					command = readInt(from_server);
+					len = readInt(from_server);
+				} catch (EOFException e) {
+					break;
+				}
+				if (payload.length < len)
+					payload = new byte[len];
+				from_server.readFully(payload, 0, len);
+				to_client.writeInt(Integer.reverseBytes(command));
+				to_client.writeInt(Integer.reverseBytes(len));
+				to_client.write(payload, 0, len);
+				to_client.flush();
+				if (command == ENTITY) {
+					record.writeInt(Integer.reverseBytes(len));
+					record.write(payload, 0, len);
+				}
+			}
+		}
+		return process.waitFor();
+	}
+
+	/**
+	 * Writes an executable script that starts the stand-in with the options, so
+	 * that it can be given to IfcGeomServerClient or IfcGeomServerPool in place
+	 * of the IfcGeomServer executable. The stand-in runs in a new JVM with the
+	 * class path of the current one.
+	 *
+	 * @param directory where the script is written
+	 * @param options   the options of the stand-in
+	 * @return the script
+	 */
+	public static Path createLauncher(Path directory, String... options) throws IOException {
+		boolean windows = System.getProperty("os.name").toLowerCase().startsWith("windows");
+		String java = Paths.get(System.getProperty("java.home"), "bin", windows ? "java.exe" : "java").toString();
+		StringBuilder command = new StringBuilder();
+		command.append('"').append(java).append("\" -cp \"")
+				.append(System.getProperty("java.class.path")).append("\" ")
+				.append(IfcGeomServerStandIn.class.getName());
+		for (String o : options)
+			command.append(" \"").append(o).append('"');
+		Files.createDirectories(directory);
+		Path launcher = Files.createTempFile(directory, "IfcGeomServerStandIn", windows ? ".bat" : ".sh");
+		try (PrintWriter w = new PrintWriter(Files.newBufferedWriter(launcher))) {
+			if (windows) {
+				w.println("@echo off");
+				w.println("@" + command);
+			} else {
+				w.println("#!/bin/sh");
+				w.println("exec " + command);
+			}
+		}
+		if (!windows)
+			Files.setPosixFilePermissions(launcher, EnumSet.of(PosixFilePermission.OWNER_READ,
+					PosixFilePermission.OWNER_WRITE, PosixFilePermission.OWNER_EXECUTE));
+		return launcher;
+	}
+
+	public static void main(String[] args) {
+		InputStream stdin = new FileInputStream(FileDescriptor.in);
+		OutputStream stdout = new FileOutputStream(FileDescriptor.out);
+		// Keep stray output off the protocol pipe
+		System.setOut(System.err);
+		try {
+			if (args.length >= 4 && args[0].equals("--record") && args[2].equals("--server")) {
+				System.exit(record(Paths.get(args[1]), Paths.get(args[3]), stdin, stdout));
+			}
+			IfcGeomServerStandIn standIn = new IfcGeomServerStandIn(stdin, stdout);
+			standIn.parse(args);
+			standIn.serve();
+		} catch (IOException | InterruptedException | RuntimeException e) {
+			e.printStackTrace();
+			System.exit(1);
+		}
+		System.exit(0);
+	}
+}
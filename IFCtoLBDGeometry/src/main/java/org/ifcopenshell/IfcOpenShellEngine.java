@@ -58,6 +58,8 @@ public class IfcOpenShellEngine  {
 	private IfcGeomServerClient client;
 	private boolean calculateQuantities;
 	private boolean applyLayerSets;
+	private IfcGeomServerPool pool;
+	private IfcGeomServerSettings settings = IfcGeomServerSettings.defaults();
 	
 	public IfcOpenShellEngine(Path executableFilename, boolean calculateQuantities, boolean applyLayerSets) throws IOException {
 		this.executableFilename = executableFilename;
@@ -65,22 +67,50 @@ public class IfcOpenShellEngine  {
 		this.setApplyLayerSets(applyLayerSets);
 	}
 
+	/**
+	 * An engine that borrows the geometry servers from a pool. The settings are
+	 * those of the pool; a model gives its server back with
+	 * {@link IfcOpenShellModel#release()}.
+	 */
+	public IfcOpenShellEngine(IfcGeomServerPool pool) {
+		this.pool = pool;
+	}
+
 	public void init() throws RenderEngineException {
+		if (pool != null)
+			return;
 		LOGGER.debug("Initializing IfcOpenShell engine");
 		
 		client = new IfcGeomServerClient(executableFilename);
 		client.setCalculateQuantities(isCalculateQuantities());
 		client.setApplyLayersets(isApplyLayerSets());
+		client.setSettings(settings);
 	}
 	
 	public void close() throws RenderEngineException {
 		LOGGER.debug("Closing IfcOpenShell engine");
-		if (client.isRunning()) {
+		if (client != null && client.isRunning()) {
 			client.close();
 		}
 	}
 
+	private IfcOpenShellModel openPooledModel(InputStream inputStream, long size) throws RenderEngineException {
+		IfcGeomServerClient pooled = pool.borrow();
+		try {
+			return new IfcOpenShellModel(pool, pooled, inputStream, size);
+		} catch (IOException e) {
+			pool.release(pooled);
+			throw new RenderEngineException(e);
+		} catch (RenderEngineException | RuntimeException e) {
+			pool.release(pooled);
+			throw e;
+		}
+	}
+
 	public IfcOpenShellModel openModel(InputStream inputStream, long size) throws RenderEngineException {
+		if (pool != null) {
+			return openPooledModel(inputStream, size);
+		}
 		if (!client.isRunning()) {
 			client = new IfcGeomServerClient(executableFilename);
 		}
@@ -92,6 +122,9 @@ public class IfcOpenShellEngine  {
 	}
 
 	public IfcOpenShellModel openModel(InputStream inputStream) throws RenderEngineException {
+		if (pool != null) {
+			return openPooledModel(inputStream, -1);
+		}
 		if (!client.isRunning()) {
 			client = new IfcGeomServerClient(executableFilename);
 		}
@@ -102,6 +135,25 @@ public class IfcOpenShellEngine  {
 		}
 	}
 
+	/**
+	 * @return a copy of the IfcGeomServer settings; those of the pool for a
+	 *         pooled engine
+	 */
+	public IfcGeomServerSettings getSettings() {
+		return pool != null ? pool.getSettings() : settings.copy();
+	}
+
+	/**
+	 * Sets the IfcGeomServer flags and deflection used by init(), e.g.
+	 * IfcGeomServerSettings.boundingBoxes(). A pooled engine uses the settings
+	 * of its pool.
+	 */
+	public void setSettings(IfcGeomServerSettings settings) {
+		if (pool != null)
+			throw new IllegalStateException("The settings of a pooled engine are those of the pool");
+		this.settings = settings.copy();
+	}
+
 	public boolean isCalculateQuantities() {
 		return calculateQuantities;
 	}
@@ -49,6 +49,7 @@ package org.ifcopenshell;
 import java.io.IOException;
 import java.io.InputStream;
 import java.util.HashMap;
+import java.util.function.Consumer;
 
 import org.bimserver.plugins.renderengine.RenderEngineException;
 import org.slf4j.Logger;
@@ -63,6 +64,8 @@ public class IfcOpenShellModel  {
 	private HashMap<String,IfcOpenShellEntityInstance> instancesByGUID;
 	
 	private IfcGeomServerClient client;
+	// Set when the client is borrowed from a pool
+	private IfcGeomServerPool pool;
 	
 	public IfcOpenShellModel(IfcGeomServerClient client, InputStream ifcInputStream) throws RenderEngineException, IOException {
 		this.client = client;
@@ -78,7 +81,30 @@ public class IfcOpenShellModel  {
 		client.loadModel(ifcInputStream, length);
 	}
 
+	IfcOpenShellModel(IfcGeomServerPool pool, IfcGeomServerClient client, InputStream ifcInputStream, long length) throws RenderEngineException, IOException {
+		this.pool = pool;
+		this.client = client;
+		this.ifcInputStream = ifcInputStream;
+		
+		if (length < 0)
+			client.loadModel(ifcInputStream);
+		else
+			client.loadModel(ifcInputStream, length);
+	}
+
+	/**
+	 * Gives a pooled geometry server back to its pool. The generated instances
+	 * stay available.
+	 */
+	public synchronized void release() {
+		if (pool != null) {
+			pool.release(client);
+			pool = null;
+		}
+	}
+
 	public void close() throws RenderEngineException {
+		release();
 		if (instancesById != null) {
 			instancesById.clear();
 		}
@@ -112,6 +138,60 @@ public class IfcOpenShellModel  {
 		LOGGER.debug(String.format("Took %.2f seconds to obtain representations for %d entities", (t1-t0) / 1.E9, instancesById.size()));
 	}
 
+	/**
+	 * @param readMeshAttributes if false, the entities come without normals,
+	 *                           colours and material indices
+	 */
+	public void setReadMeshAttributes(boolean readMeshAttributes) {
+		client.setReadMeshAttributes(readMeshAttributes);
+	}
+
+	/**
+	 * @param meshFilter the entities whose meshes are not decoded, null for
+	 *                   none
+	 */
+	public void setMeshFilter(IfcGeomServerClient.MeshFilter meshFilter) {
+		client.setMeshFilter(meshFilter);
+	}
+
+	/**
+	 * Reads the entities from the geometry server and hands each one to the
+	 * consumer without keeping it, so the mesh arrays can be collected as soon
+	 * as the consumer returns. The getInstanceFrom methods find nothing after
+	 * this.
+	 * 
+	 * @return true if all the entities were read, false if the geometry server
+	 *         stopped before the end or the thread was interrupted
+	 */
+	public boolean streamGeometry(Consumer<IfcGeomServerClientEntity> consumer) throws RenderEngineException {
+		instancesById = new HashMap<Integer,IfcOpenShellEntityInstance>();
+		instancesByGUID = new HashMap<String,IfcOpenShellEntityInstance>();
+
+		final double t0 = (double) System.nanoTime();
+		int count = 0;
+		boolean complete = true;
+
+		while (client.hasNext()) {
+			if (Thread.currentThread().isInterrupted()) {
+				// Cancelled; release() retires the process with the rest of the stream
+				complete = false;
+				break;
+			}
+			IfcGeomServerClientEntity next = client.getNext();
+			if(next==null) {
+				complete = false;
+				break;
+			}
+			consumer.accept(next);
+			count++;
+		}
+
+		final double t1 = (double) System.nanoTime();
+
+		LOGGER.debug(String.format("Took %.2f seconds to stream representations for %d entities", (t1-t0) / 1.E9, count));
+		return complete && client.isRunning();
+	}
+
 	public IfcOpenShellEntityInstance getInstanceFromExpressId(int oid) {
 		if ( instancesById.containsKey(oid) ) {
 			return instancesById.get(oid);
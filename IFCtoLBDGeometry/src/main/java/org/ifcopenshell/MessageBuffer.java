@@ -0,0 +1,120 @@
+package org.ifcopenshell;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.Channels;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.Charset;
+
+/*
+ *  Copyright (c) 2020 Jyrki Oraskari (Jyrki.Oraskari@gmail.f)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+/**
+ * A reusable direct little-endian buffer for the IfcGeomServer messages. A
+ * message is read from the pipe in one go, and the arrays in it are decoded
+ * with the bulk get of the typed views instead of value by value. The buffer
+ * grows to the largest message of the process and is kept for the next
+ * ones.
+ */
+final class MessageBuffer {
+	private static final int INITIAL_CAPACITY = 1 << 20;
+
+	private ByteBuffer buffer = ByteBuffer.allocateDirect(INITIAL_CAPACITY).order(ByteOrder.LITTLE_ENDIAN);
+	private InputStream source = null;
+	private ReadableByteChannel channel = null;
+
+	/**
+	 * Reads the next len bytes of the stream.
+	 *
+	 * @return the buffer, positioned at the start of the message
+	 */
+	ByteBuffer read(InputStream in, int len) throws IOException {
+		if (in != source) {
+			source = in;
+			channel = Channels.newChannel(in);
+		}
+		if (buffer.capacity() < len) {
+			buffer = ByteBuffer.allocateDirect(Math.max(len, buffer.capacity() * 2)).order(ByteOrder.LITTLE_ENDIAN);
+		}
+		buffer.clear();
+		buffer.limit(len);
+		while (buffer.hasRemaining()) {
+			if (channel.read(buffer) < 0)
+				throw new EOFException();
+		}
+		buffer.flip();
+		return buffer;
+	}
+
+	static String getString(ByteBuffer b) {
+		int len = b.getInt();
+		byte[] bytes = new byte[len];
+		b.get(bytes);
+		skipPadding(b, len);
+		return new String(bytes, Charset.defaultCharset());
+	}
+
+	private static void skipPadding(ByteBuffer b, int len) {
+		int padding = (4 - len % 4) % 4;
+		b.position(b.position() + padding);
+	}
+
+	static float[] getFloatArray(ByteBuffer b) {
+		int bytes = b.getInt();
+		float[] fs = new float[bytes / 4];
+		b.asFloatBuffer().get(fs);
+		b.position(b.position() + bytes);
+		return fs;
+	}
+
+	static double[] getDoubleArray(ByteBuffer b) {
+		int bytes = b.getInt();
+		double[] ds = new double[bytes / 8];
+		b.asDoubleBuffer().get(ds);
+		b.position(b.position() + bytes);
+		return ds;
+	}
+
+	static int[] getIntArray(ByteBuffer b) {
+		int bytes = b.getInt();
+		int[] is = new int[bytes / 4];
+		b.asIntBuffer().get(is);
+		b.position(b.position() + bytes);
+		return is;
+	}
+
+	/**
+	 * Steps over an array without decoding it.
+	 */
+	static void skipArray(ByteBuffer b) {
+		int bytes = b.getInt();
+		b.position(b.position() + bytes);
+	}
+
+	/**
+	 * @return the rest of the message as a String, null if nothing is left
+	 */
+	static String getRemainder(ByteBuffer b) {
+		if (!b.hasRemaining())
+			return null;
+		byte[] remainder = new byte[b.remaining()];
+		b.get(remainder);
+		return new String(remainder, Charset.defaultCharset());
+	}
+}
@@ -22,8 +22,10 @@ import org.apache.jena.riot.RDFDataMgr;
 import org.apache.jena.riot.RDFFormat;
 import org.glassfish.jersey.media.multipart.FormDataParam;
 
+import de.rwth_aachen.dc.lbd.IFCBoundingBoxes;
 import de.rwth_aachen.dc.lbd_smls.IFCtoLBDConverter_BIM4Ren;
 import de.rwth_aachen.dc.lbd_smls.IfcOWLtoLBDConverter_BIM4Ren;
+import de.rwth_aachen.dc.lbd_smls.utils.artifacts.ArtifactSink;
 
 /*
  * Jyrki Oraskari, 2020
@@ -31,6 +33,15 @@ import de.rwth_aachen.dc.lbd_smls.IfcOWLtoLBDConverter_BIM4Ren;
 
 @Path("/")
 public class IFCtoB4R_OpenAPI {
+	// IfcGeomServer processes kept started for the requests, each one reused for
+	// a few models; more concurrent requests start extra processes
+	private static final int GEOMETRY_SERVERS = Runtime.getRuntime().availableProcessors();
+	private static final int GEOMETRY_SERVER_MODELS = 10;
+	private static final long GEOMETRY_TIMEOUT_MS = 10 * 60 * 1000;
+
+	static {
+		IFCBoundingBoxes.configureServerPool(GEOMETRY_SERVERS, GEOMETRY_SERVER_MODELS, GEOMETRY_TIMEOUT_MS);
+	}
 
 	
 	
@@ -249,7 +260,8 @@ public class IFCtoB4R_OpenAPI {
 
 	
 	private void extractIFCtoB4R(File ifcFile, StringBuilder result_string, RDFFormat rdfformat) {
-		IFCtoLBDConverter_BIM4Ren lbdconverter = new IFCtoLBDConverter_BIM4Ren();
+		// No _ifcowl_model.ttl or _BOT_SMLS_model.ttl dumps next to the temporary file
+		IFCtoLBDConverter_BIM4Ren lbdconverter = new IFCtoLBDConverter_BIM4Ren(ArtifactSink.Mode.NONE);
 		Model m = lbdconverter.convert(ifcFile.getAbsolutePath(), "https://dot.dc.rwth-aachen.de/IFCtoLBDset");
 
 		OutputStream ttl_output = new OutputStream() {
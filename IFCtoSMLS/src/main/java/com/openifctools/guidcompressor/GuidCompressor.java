@@ -33,14 +33,32 @@ public class GuidCompressor {
 												'a','b','c','d','e','f','g','h','i','j','k','l','m','n','o','p','q','r','s','t','u','v','w','x','y','z',
 												'_','$'};
 
+	/**
+	 * Length of the compressed IfcGloballyUniqueId form
+	 */
+	public static final int COMPRESSED_LENGTH = 22;
+
+	/**
+	 * Length of the uncompressed 8-4-4-4-12 form
+	 */
+	public static final int UNCOMPRESSED_LENGTH = 36;
+
+	static final char[] cHexTable = "0123456789abcdef".toCharArray();
+
+	// Reverse of cConversionTable, -1 for characters outside the table
+	static final byte[] cDecodeTable = new byte[128];
+	static {
+		java.util.Arrays.fill(cDecodeTable, (byte) -1);
+		for (int i = 0; i < cConversionTable.length; i++)
+			cDecodeTable[cConversionTable[i]] = (byte) i;
+	}
+
 	/**
 	 * Generates a new GUID and returns a compressed string representation as used for IfcGloballyUniqueId
 	 * @return String with a length of 22 characters
 	 */
 	public static String getNewIfcGloballyUniqueId(){
-		Guid guid = getGuidFromUncompressedString(UUID.randomUUID().toString());		
-		String shortString = getCompressedStringFromGuid(guid);
-		return shortString;
+		return compressGuidString(UUID.randomUUID().toString());
 	}
 	
 	/**
@@ -245,12 +263,97 @@ public class GuidCompressor {
 		return result;
 	}
 
+	/**
+	 * Writes the compressed form of a canonical uncompressed GUID
+	 * (xxxxxxxx-xxxx-xxxx-xxxx-xxxxxxxxxxxx) into a char array. Nothing is
+	 * allocated.
+	 * 
+	 * @param uncompressed the 36 character uncompressed form
+	 * @param dest the array the 22 characters are written to
+	 * @param offset the start position at dest
+	 * @return false if the input is not in the canonical form; dest may then be
+	 *         partially written
+	 */
+	public static boolean compressGuid(CharSequence uncompressed, char[] dest, int offset) {
+		if (uncompressed.length() != UNCOMPRESSED_LENGTH || dest.length - offset < COMPRESSED_LENGTH)
+			return false;
+		// The 16 bytes are read as one 8 bit and five 24 bit numbers
+		int pos = 0;
+		int out = offset;
+		for (int group = 0; group < 6; group++) {
+			int bytes = group == 0 ? 1 : 3;
+			int number = 0;
+			for (int b = 0; b < bytes; b++) {
+				if (pos == 8 || pos == 13 || pos == 18 || pos == 23) {
+					if (uncompressed.charAt(pos) != '-')
+						return false;
+					pos++;
+				}
+				int hi = Character.digit(uncompressed.charAt(pos++), 16);
+				int lo = Character.digit(uncompressed.charAt(pos++), 16);
+				if (hi < 0 || lo < 0)
+					return false;
+				number = (number << 8) | (hi << 4) | lo;
+			}
+			int digits = group == 0 ? 2 : 4;
+			for (int d = digits - 1; d >= 0; d--) {
+				dest[out + d] = cConversionTable[number & 63];
+				number >>>= 6;
+			}
+			out += digits;
+		}
+		return true;
+	}
+
+	/**
+	 * Writes the uncompressed lower case form of a compressed GUID into a char
+	 * array. Nothing is allocated.
+	 * 
+	 * @param compressed the 22 character compressed form
+	 * @param dest the array the 36 characters are written to
+	 * @param offset the start position at dest
+	 * @return false if the input is not a valid compressed GUID; dest may then be
+	 *         partially written
+	 */
+	public static boolean uncompressGuid(CharSequence compressed, char[] dest, int offset) {
+		if (compressed.length() != COMPRESSED_LENGTH || dest.length - offset < UNCOMPRESSED_LENGTH)
+			return false;
+		int pos = 0;
+		int out = offset;
+		for (int group = 0; group < 6; group++) {
+			int digits = group == 0 ? 2 : 4;
+			int number = 0;
+			for (int d = 0; d < digits; d++) {
+				char c = compressed.charAt(pos++);
+				int value = c < 128 ? cDecodeTable[c] : -1;
+				if (value < 0)
+					return false;
+				number = (number << 6) | value;
+			}
+			int bytes = group == 0 ? 1 : 3;
+			if (group == 0 && number > 255)
+				return false;
+			for (int b = bytes - 1; b >= 0; b--) {
+				int octet = (number >>> (8 * b)) & 255;
+				int written = out - offset;
+				if (written == 8 || written == 13 || written == 18 || written == 23)
+					dest[out++] = '-';
+				dest[out++] = cHexTable[octet >>> 4];
+				dest[out++] = cHexTable[octet & 15];
+			}
+		}
+		return true;
+	}
+
 	/**
 	 * Converts an uncompressed String representation of a GUID into a compressed one
 	 * @param uncompressedString the String representation which gets compressed
 	 * @return the compressed String representation with a length of 22 characters
 	 */
 	public static String compressGuidString(String uncompressedString){
+		char[] result = new char[COMPRESSED_LENGTH];
+		if (compressGuid(uncompressedString, result, 0))
+			return new String(result);
 		Guid guid = getGuidFromUncompressedString(uncompressedString);
 		return getCompressedStringFromGuid(guid);
 	}
@@ -261,8 +364,34 @@ public class GuidCompressor {
 	 * @return the uncompressed String representation
 	 */
 	public static String uncompressGuidString(String compressedString){
+		char[] result = new char[UNCOMPRESSED_LENGTH];
+		if (uncompressGuid(compressedString, result, 0))
+			return new String(result);
+		Guid guid = new Guid();
+		getGuidFromCompressedString(compressedString, guid);
+		return getUncompressedStringFromGuid(guid);
+	}
+
+	/**
+	 * The original String based conversion. Kept as the reference for the char
+	 * array codec.
+	 * @param compressedString the String representation which gets uncompressed
+	 * @return the uncompressed String representation
+	 */
+	public static String uncompressGuidStringLegacy(String compressedString){
 		Guid guid = new Guid();
 		getGuidFromCompressedString(compressedString, guid);
 		return getUncompressedStringFromGuid(guid);
 	}
+
+	/**
+	 * The original String based conversion. Kept as the reference for the char
+	 * array codec.
+	 * @param uncompressedString the String representation which gets compressed
+	 * @return the compressed String representation with a length of 22 characters
+	 */
+	public static String compressGuidStringLegacy(String uncompressedString){
+		Guid guid = getGuidFromUncompressedString(uncompressedString);
+		return getCompressedStringFromGuid(guid);
+	}
 }
@@ -16,7 +16,6 @@ import org.apache.jena.rdf.model.Property;
 import org.apache.jena.rdf.model.RDFNode;
 import org.apache.jena.rdf.model.Resource;
 import org.apache.jena.rdf.model.StmtIterator;
-import org.apache.jena.vocabulary.RDF;
 
 import de.rwth_aachen.dc.lbd_smls.ns.LBD_NS;
 import de.rwth_aachen.dc.lbd_smls.ns.OPM;
@@ -44,7 +43,7 @@ import de.rwth_aachen.dc.lbd_smls.utils.StringOperations;
  *
  */
 public class AttributeSet_SMLS {
-	private final Map<String, String> unitmap;
+	private final UnitResolver units;
 
 	private class PsetProperty {
 		final Property p; // Jena RDF property
@@ -63,8 +62,8 @@ public class AttributeSet_SMLS {
 	private final Map<String, RDFNode> mapPnameValue = new HashMap<>();
 	private final Map<String, RDFNode> mapPnameType = new HashMap<>();
 
-	public AttributeSet_SMLS(String uriBase, Model lbd_model, Map<String, String> unitmap) {
-		this.unitmap = unitmap;
+	public AttributeSet_SMLS(String uriBase, Model lbd_model, UnitResolver units) {
+		this.units = units;
 		this.uriBase = uriBase;
 		this.lbd_model = lbd_model;
 	}
@@ -92,53 +91,11 @@ public class AttributeSet_SMLS {
 
 				RDFNode ifc_measurement_type = this.mapPnameType.get(pname);
 				if (ifc_measurement_type != null) {
-					String unit = ifc_measurement_type.asResource().getLocalName().toLowerCase();
-					if (unit.startsWith("ifc"))
-						unit = unit.substring(3);
-					if (unit.startsWith("positive"))
-						unit = unit.substring("positive".length());
-					if (unit.endsWith("measure"))
-						unit = unit.substring(0, unit.length() - "measure".length());
-					String si_unit = this.unitmap.get(unit);
-					if (si_unit != null) {
-						Resource bn = lbd_resource.getModel().createResource();
+					UnitResolver.Unit unit = this.units.resolve(ifc_measurement_type);
+					if (unit.isValueNode()) {
+						Resource bn = this.units.createValueNode(lbd_resource.getModel(),
+								this.mapPnameValue.get(pname), unit);
 						lbd_resource.addProperty(property, bn);
-
-						bn.addProperty(RDF.value, this.mapPnameValue.get(pname));
-						if (si_unit.equals("METRE")) {
-							bn.addProperty(LBD_NS.SMLS.unit, LBD_NS.UNIT.METER);
-							//Resource bn_accuracy = lbd_resource.getModel().createResource();
-							//Literal accuracy = lbd_resource.getModel().createTypedLiteral(1f);
-							//bn.addProperty(LBD_NS.SMLS.accuracy, bn_accuracy);
-							//bn_accuracy.addProperty(RDF.value, accuracy);
-
-						} else if (si_unit.equals("SQUARE_METRE")) {
-							bn.addProperty(LBD_NS.SMLS.unit, LBD_NS.UNIT.SQUARE_METRE);
-							Resource bn_accuracy = lbd_resource.getModel().createResource();
-							//Literal accuracy = lbd_resource.getModel().createTypedLiteral(1f);
-							//bn.addProperty(LBD_NS.SMLS.accuracy, bn_accuracy);
-							//bn_accuracy.addProperty(RDF.value, accuracy);
-
-						} 
-						else if (si_unit.equals("CUBIC_METRE")) {
-							bn.addProperty(LBD_NS.SMLS.unit, LBD_NS.UNIT.CUBIC_METRE);
-							//Resource bn_accuracy = lbd_resource.getModel().createResource();
-							//Literal accuracy = lbd_resource.getModel().createTypedLiteral(1f);
-							//bn.addProperty(LBD_NS.SMLS.accuracy, bn_accuracy);
-							//bn_accuracy.addProperty(RDF.value, accuracy);
-						} 
-						else if (si_unit.equals("RADIAN")) {
-							bn.addProperty(LBD_NS.SMLS.unit, LBD_NS.UNIT.RADIAN);
-							//Resource bn_accuracy = lbd_resource.getModel().createResource();
-							//Literal accuracy = lbd_resource.getModel().createTypedLiteral(1f);
-							//bn.addProperty(LBD_NS.SMLS.accuracy, bn_accuracy);
-							//bn_accuracy.addProperty(RDF.value, accuracy);
-
-						} 
-						/*else {
-							bn.addProperty(LBD_NS.BEXT.si_unit, si_unit);
-							bn.addProperty(LBD_NS.BEXT.unitType, unit);
-						}*/
 					} else {
 						lbd_resource.addProperty(property, this.mapPnameValue.get(pname));
 					}
@@ -1,28 +1,26 @@
 
 package de.rwth_aachen.dc.lbd_smls;
 
-import java.io.BufferedReader;
-import java.io.BufferedWriter;
 import java.io.File;
-import java.io.FileNotFoundException;
-import java.io.FileOutputStream;
-import java.io.FileReader;
-import java.io.FileWriter;
 import java.io.IOException;
 import java.io.InputStream;
-import java.io.OutputStreamWriter;
-import java.nio.charset.Charset;
-import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.HashMap;
-import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.Future;
 
 import org.apache.jena.datatypes.RDFDatatype;
 import org.apache.jena.datatypes.TypeMapper;
+import org.apache.jena.graph.Node;
 import org.apache.jena.ontology.OntModel;
 import org.apache.jena.ontology.OntModelSpec;
 import org.apache.jena.rdf.model.Literal;
@@ -38,13 +36,10 @@ import org.apache.jena.rdf.model.StmtIterator;
 import org.apache.jena.reasoner.Reasoner;
 import org.apache.jena.riot.Lang;
 import org.apache.jena.riot.RDFDataMgr;
+import org.apache.jena.riot.system.StreamRDFLib;
 import org.apache.jena.vocabulary.OWL;
 import org.apache.jena.vocabulary.RDF;
 import org.apache.jena.vocabulary.RDFS;
-import org.bimserver.plugins.deserializers.DeserializeException;
-import org.bimserver.plugins.renderengine.RenderEngineException;
-
-import com.openifctools.guidcompressor.GuidCompressor;
 
 import be.ugent.IfcSpfReader;
 import de.rwth_aachen.dc.lbd.BoundingBox;
@@ -54,9 +49,18 @@ import de.rwth_aachen.dc.lbd_smls.geo.WktLiteral;
 import de.rwth_aachen.dc.lbd_smls.ns.IfcOWLNameSpace;
 import de.rwth_aachen.dc.lbd_smls.ns.LBD_NS;
 import de.rwth_aachen.dc.lbd_smls.ns.OPM;
-import de.rwth_aachen.dc.lbd_smls.utils.FileUtils;
+import de.rwth_aachen.dc.lbd_smls.utils.IfcGuidTable;
 import de.rwth_aachen.dc.lbd_smls.utils.IfcOWLUtils;
+import de.rwth_aachen.dc.lbd_smls.utils.IfcRelationshipIndex;
+import de.rwth_aachen.dc.lbd_smls.utils.PropertyValueReader;
 import de.rwth_aachen.dc.lbd_smls.utils.RDFUtils;
+import de.rwth_aachen.dc.lbd_smls.utils.artifacts.ArtifactSink;
+import de.rwth_aachen.dc.lbd_smls.utils.artifacts.SynchronousArtifactSink;
+import de.rwth_aachen.dc.lbd_smls.utils.filter.FilterConfiguration;
+import de.rwth_aachen.dc.lbd_smls.utils.filter.FilteringStreamRDF;
+import de.rwth_aachen.dc.lbd_smls.utils.graph.CompactGraph;
+import de.rwth_aachen.dc.lbd_smls.utils.store.IfcOWLStorage;
+import de.rwth_aachen.dc.lbd_smls.utils.store.TDB2IfcOWLStore;
 import de.rwth_aachen.dc.lbd_smls.utils.rdfpath.RDFStep;
 import openllet.jena.PelletReasonerFactory;
 
@@ -92,102 +96,295 @@ public class IFCtoLBDConverter_BIM4Ren {
 
 	private Optional<String> ontURI = Optional.empty();
 	private IfcOWLNameSpace ifcOWL;
+	private IfcRelationshipIndex relationships;
+	private IfcGuidTable guids;
+
+	// The resolved LBD classes of the ifcOWL classes
+	private final Map<Node, Optional<Resource>> lbd_product_types = new ConcurrentHashMap<>();
 
 	// URI-property set
 	private Map<String, PropertySet_SMLS> propertysets;
 
 	private Model lbd_general_output_model;
-	private IFCBoundingBoxes bounding_boxes = null;
+	// The geometry is generated next to the ifcOWL conversion; addBoundingBox waits for it
+	private Future<IFCBoundingBoxes> bounding_boxes = null;
+	// Runs the geometry generation and the ifcOWL dump next to the conversion
+	private static final ExecutorService background_executor = Executors.newCachedThreadPool(r -> {
+		Thread t = new Thread(r, "ifc2lbd-background");
+		t.setDaemon(true);
+		return t;
+	});
+
+	// Where the _ifcowl_model.ttl and _BOT_SMLS_model.ttl dumps go
+	private final ArtifactSink artifact_sink;
+
+	// The ifcOWL triples that are dropped while reading the converted IFC file
+	private FilterConfiguration filter_configuration = FilterConfiguration.defaults();
+
+	// In-memory or TDB2 ifcOWL graph
+	private IfcOWLStorage ifcowl_storage = IfcOWLStorage.inMemory();
+	private TDB2IfcOWLStore ifcowl_store = null;
+	private boolean compact_ifcowl_graph = false;
+
+	// Worker threads for the property sets and the storeys; 1 runs the conversion on the calling thread
+	private int parallelism = 1;
+	private ForkJoinPool worker_pool = null;
+
+	// Shared IRIs for equal (value, unit) nodes instead of a blank node per element
+	private boolean compact_value_nodes = false;
 
 	public IFCtoLBDConverter_BIM4Ren() {
+		this(ArtifactSink.Mode.SYNCHRONOUS);
+	}
+
+	/**
+	 * @param artifact_mode How the intermediate ifcOWL model and the result model
+	 *                      are dumped next to the IFC file. The REST interface
+	 *                      uses ArtifactSink.Mode.NONE.
+	 */
+	public IFCtoLBDConverter_BIM4Ren(ArtifactSink.Mode artifact_mode) {
 		this.pelletModel =  ModelFactory.createOntologyModel(PelletReasonerFactory.THE_SPEC);
+		this.artifact_sink = ArtifactSink.create(artifact_mode);
+		try {
+			// The geometry server processes start while the converter is set up
+			IFCBoundingBoxes.warmUp();
+		} catch (Exception e) { // Just in case IFCOpenShell does not function under Tomcat
+			e.printStackTrace();
+		}
+	}
+
+	/**
+	 * @param filter_configuration the rules for the ifcOWL triples that are not
+	 *                             read into the model. The default excludes the
+	 *                             detailed geometry entities.
+	 */
+	public void setFilterConfiguration(FilterConfiguration filter_configuration) {
+		this.filter_configuration = filter_configuration;
+	}
+
+	/**
+	 * @param ifcowl_storage where the ifcOWL graph is kept during the conversion.
+	 *                       The default is the heap. IfcOWLStorage.automatic()
+	 *                       uses a temporary TDB2 dataset when the graph would
+	 *                       take more than half of the maximum heap.
+	 */
+	public void setIfcOWLStorage(IfcOWLStorage ifcowl_storage) {
+		this.ifcowl_storage = ifcowl_storage;
+	}
+
+	/**
+	 * @param compact_ifcowl_graph if true, the in-memory ifcOWL model is frozen
+	 *                             into a read-only CompactGraph after the
+	 *                             ontologies are added. This uses less memory
+	 *                             during the traversal.
+	 */
+	public void setCompactIfcOWLGraph(boolean compact_ifcowl_graph) {
+		this.compact_ifcowl_graph = compact_ifcowl_graph;
+	}
+
+	/**
+	 * @param parallelism the number of threads that convert the property sets
+	 *                    and the storeys of a building. The default 1 converts
+	 *                    on the calling thread.
+	 */
+	public void setParallelism(int parallelism) {
+		this.parallelism = Math.max(1, parallelism);
+		if (worker_pool != null && worker_pool.getParallelism() != this.parallelism) {
+			worker_pool.shutdown();
+			worker_pool = null;
+		}
+	}
+
+	/**
+	 * The workers of the storeys and the property sets. The pool is kept for the
+	 * next conversion; its idle threads are daemons that end by themselves.
+	 */
+	private synchronized ForkJoinPool workerPool() {
+		if (worker_pool == null)
+			worker_pool = new ForkJoinPool(parallelism);
+		return worker_pool;
+	}
+
+	/**
+	 * Adds the models of the tasks into the output in the task order. If a task
+	 * fails, the rest are cancelled and waited for, so that no worker is left in
+	 * an ifcOWL read transaction, and the failure of the task is rethrown.
+	 */
+	private void mergeInOrder(List<ForkJoinTask<Model>> tasks) {
+		try {
+			for (ForkJoinTask<Model> task : tasks)
+				lbd_general_output_model.add(task.join());
+		} catch (Throwable e) {
+			for (ForkJoinTask<Model> task : tasks)
+				task.cancel(false);
+			for (ForkJoinTask<Model> task : tasks)
+				task.quietlyJoin();
+			throw e;
+		}
+	}
+
+	/**
+	 * Experimental: the triple reduction has only been measured on synthetic
+	 * property data so far, not on real models. Use Report_CompactValueNodes to
+	 * check it on a model before relying on it. The default is off.
+	 * 
+	 * @param compact_value_nodes if true, the property values with a unit are
+	 *                            written on shared nodes, one per (value, unit)
+	 *                            pair, instead of a blank node per element.
+	 */
+	public void setCompactValueNodes(boolean compact_value_nodes) {
+		this.compact_value_nodes = compact_value_nodes;
+	}
+
+	/**
+	 * @return the number of shared value nodes of the last conversion in the
+	 *         compact value node mode
+	 */
+	public int getValueNodeCount() {
+		return unit_resolver == null ? 0 : unit_resolver.getValueNodeCount();
 	}
 
 	public Model convert(String ifc_filename, String uriBase) {
 		System.out.println("convert");
-		this.propertysets = new HashMap<>();
+		this.propertysets = new ConcurrentHashMap<>();
 		this.ifcowl_product_map = new HashMap<>();
+		this.lbd_product_types.clear();
 
 		if (!uriBase.endsWith("#") && !uriBase.endsWith("/"))
 			uriBase += "#";
 		this.uriBase = uriBase;
 
-		try {
-			System.out.println("Set the bounding box generator");
-			this.bounding_boxes = new IFCBoundingBoxes(new File(ifc_filename));
-		} catch (RenderEngineException | DeserializeException | IOException e) {
-			e.printStackTrace();
-		}
+		System.out.println("Start the bounding box generator");
+		final File ifc_file = new File(ifc_filename);
+		// A Future of the executor, so that cancel(true) interrupts the stream
+		this.bounding_boxes = background_executor.submit(() -> {
+			try {
+				return new IFCBoundingBoxes(ifc_file);
+			} catch (Exception e) { // Just in case IFCOpenShell does not function under Tomcat
+				e.printStackTrace();
+				return null;
+			}
+		});
 
 		ontology_model = ModelFactory.createDefaultModel();
 		String ifc_model_file_base = ifc_filename.substring(0, ifc_filename.lastIndexOf("."));
 
-		ifcowl_model = readAndConvertIFC(ifc_filename, uriBase); // Before: readInOntologies(ifc_filename);
-		writeModel(ifcowl_model, ifc_model_file_base + "_ifcowl_model.ttl");
-		System.out.println("read ontologies");
-		readInOntologies(ifc_filename);
-		System.out.println("create product mapping");
-		createIfcLBDProductMapping();
-		System.out.println("pmapping done");
+		try {
+			ifcowl_model = readAndConvertIFC(ifc_filename, uriBase); // Before: readInOntologies(ifc_filename);
+			// The dump is taken on another thread while the ontologies are parsed;
+			// the ifcOWL model is not modified before the join
+			CompletableFuture<Void> ifcowl_dump = CompletableFuture.runAsync(
+					() -> inIfcOWLRead(() -> artifact_sink.write(ifcowl_model, ifc_model_file_base + "_ifcowl_model.ttl")),
+					background_executor);
+			System.out.println("read ontologies");
+			Model ifcowl_ontology = readInOntologies(ifc_filename);
+			ifcowl_dump.join();
+			inIfcOWLWrite(() -> {
+				ifcowl_model.setNsPrefixes(ifcowl_ontology.getNsPrefixMap());
+				ifcowl_model.add(ifcowl_ontology);
+			});
+			if (compact_ifcowl_graph && ifcowl_store == null) {
+				System.out.println("freeze the ifcOWL model");
+				ifcowl_model = ModelFactory.createModelForGraph(CompactGraph.freeze(ifcowl_model.getGraph()));
+			}
 
-		this.lbd_general_output_model = ModelFactory.createDefaultModel();
+			this.lbd_general_output_model = ModelFactory.createDefaultModel();
+			final String base = uriBase;
+			inIfcOWLRead(() -> {
+				System.out.println("create product mapping");
+				createIfcLBDProductMapping();
+				System.out.println("pmapping done");
 
-		addNamespaces(uriBase);
+				addNamespaces(base);
 
-		if (this.ontURI.isPresent())
-			ifcOWL = new IfcOWLNameSpace(this.ontURI.get());
-		else {
-			System.out.println("No ifcOWL ontology available.");
-			return lbd_general_output_model;
+				if (this.ontURI.isPresent())
+					ifcOWL = new IfcOWLNameSpace(this.ontURI.get());
+				else {
+					System.out.println("No ifcOWL ontology available.");
+					return;
+				}
+				System.out.println("index the relationships");
+				relationships = new IfcRelationshipIndex(ifcOWL, ifcowl_model);
+				guids = new IfcGuidTable(ifcOWL);
+				System.out.println("handle property set data");
+				handlePropertySetData();
+				System.out.println("execution");
+				execution();
+				artifact_sink.writeFinal(lbd_general_output_model, ifc_model_file_base + "_BOT_SMLS_model.ttl");
+			});
+		} finally {
+			// Not needed after a failure or an early return; the stream holds a
+			// process of the geometry server pool
+			if (!bounding_boxes.isDone())
+				bounding_boxes.cancel(true);
+			closeIfcOWLStore();
 		}
-		System.out.println("handle property set data");
-		handlePropertySetData();
-		System.out.println("execution");
-		execution();
-		writeModel(lbd_general_output_model, ifc_model_file_base + "_BOT_SMLS_model.ttl");
 		return lbd_general_output_model;
 	}
 
-	public static void writeModel(Model m, String target_file) {
-		OutputStreamWriter fo = null;
-		try {
-			fo = new OutputStreamWriter(new FileOutputStream(new File(target_file)),
-					Charset.forName("UTF-8").newEncoder());
+	/**
+	 * Runs r in a read transaction when the ifcOWL graph is in TDB2. The
+	 * transactions are per thread, so each worker thread must use this for
+	 * itself.
+	 */
+	private void inIfcOWLRead(Runnable r) {
+		if (ifcowl_store == null)
+			r.run();
+		else
+			ifcowl_store.executeRead(r);
+	}
 
-			m.write(fo, "TTL");
-		} catch (FileNotFoundException e) {
-			e.printStackTrace();
-		} finally {
-			if (fo != null)
-				try {
-					fo.close();
-				} catch (IOException e) {
-				}
+	private void inIfcOWLWrite(Runnable r) {
+		if (ifcowl_store == null)
+			r.run();
+		else
+			ifcowl_store.executeWrite(r);
+	}
+
+	private void closeIfcOWLStore() {
+		if (ifcowl_store != null) {
+			ifcowl_store.close();
+			ifcowl_store = null;
+			// The model is a view of the closed dataset
+			ifcowl_model = null;
 		}
 	}
 
-	Set<Resource> has_geometry = new HashSet<>();
+	/**
+	 * Waits until the background artifact writes of this converter are done. In
+	 * the ArtifactSink.Mode.BACKGROUND mode, the model returned by convert is
+	 * written as it is, so it must not be modified before this returns.
+	 */
+	public void flushArtifacts() {
+		artifact_sink.flush();
+	}
+
+	public static void writeModel(Model m, String target_file) {
+		new SynchronousArtifactSink().write(m, target_file);
+	}
+
+	Set<Resource> has_geometry = ConcurrentHashMap.newKeySet();
 
 	private void execution() {
 		System.out.println("Conversion execution");
 		IfcOWLUtils.listSites(ifcOWL, ifcowl_model).stream().map(rn -> rn.asResource()).forEach(site -> {
 			Resource sio = createformattedURI(site, lbd_general_output_model, "Site");
-			String guid_site = IfcOWLUtils.getGUID(site, this.ifcOWL);
-			String uncompressed_guid_site = GuidCompressor.uncompressGuidString(guid_site);
+			String guid_site = guids.getGUID(site);
+			String uncompressed_guid_site = guids.getUncompressedGUID(site);
 
 			addAttrributes(lbd_general_output_model, site.asResource(), sio);
 			sio.addProperty(RDF.type, LBD_NS.BOT.site);
 
 			addBoundingBox(sio, guid_site);
 
-			IfcOWLUtils.listPropertysets(site, ifcOWL).stream().map(rn -> rn.asResource()).forEach(propertyset -> {
+			relationships.listPropertysets(site).stream().map(rn -> rn.asResource()).forEach(propertyset -> {
 				PropertySet_SMLS p_set = this.propertysets.get(propertyset.getURI());
 				if (p_set != null) {
 					p_set.connect(sio, uncompressed_guid_site);
 				}
 			});
 
-			IfcOWLUtils.listBuildings(site, ifcOWL).stream().map(rn -> rn.asResource()).forEach(building -> {
+			relationships.listBuildings(site).stream().map(rn -> rn.asResource()).forEach(building -> {
 				if (!RDFUtils.getType(building.asResource()).get().getURI().endsWith("#IfcBuilding")) {
 					System.err.println("Not an #IfcBuilding");
 					return;
@@ -195,8 +392,8 @@ public class IFCtoLBDConverter_BIM4Ren {
 				System.out.println("Building: " + building.asResource().getURI());
 
 				Resource bo = createformattedURI(building, lbd_general_output_model, "Building");
-				String guid_building = IfcOWLUtils.getGUID(building, this.ifcOWL);
-				String uncompressed_guid_building = GuidCompressor.uncompressGuidString(guid_building);
+				String guid_building = guids.getGUID(building);
+				String uncompressed_guid_building = guids.getUncompressedGUID(building);
 
 				addAttrributes(lbd_general_output_model, building, bo);
 
@@ -204,7 +401,7 @@ public class IFCtoLBDConverter_BIM4Ren {
 				addBoundingBox(bo, guid_building);
 				sio.addProperty(LBD_NS.BOT.hasBuilding, bo);
 
-				IfcOWLUtils.listPropertysets(building, ifcOWL).stream().map(rn -> rn.asResource())
+				relationships.listPropertysets(building).stream().map(rn -> rn.asResource())
 						.forEach(propertyset -> {
 							PropertySet_SMLS p_set = this.propertysets.get(propertyset.getURI());
 							if (p_set != null) {
@@ -212,71 +409,12 @@ public class IFCtoLBDConverter_BIM4Ren {
 							}
 						});
 
-				IfcOWLUtils.listStoreys(building, ifcOWL, this.lbd_general_output_model).stream()
-						.map(rn -> rn.asResource()).forEach(storey -> {
-
-							if (!RDFUtils.getType(storey.asResource()).get().getURI().endsWith("#IfcBuildingStorey")) {
-								System.err.println("No an #IfcBuildingStorey");
-								return;
-							}
-
-							Resource so = createformattedURI(storey, lbd_general_output_model, "Storey");
-							String guid_storey = IfcOWLUtils.getGUID(storey, this.ifcOWL);
-							String uncompressed_guid_storey = GuidCompressor.uncompressGuidString(guid_storey);
-
-							addAttrributes(lbd_general_output_model, storey, so);
-
-							bo.addProperty(LBD_NS.BOT.hasStorey, so);
-							addBoundingBox(so, guid_storey);
-							so.addProperty(RDF.type, LBD_NS.BOT.storey);
-
-							IfcOWLUtils.listPropertysets(storey, ifcOWL).stream().map(rn -> rn.asResource())
-									.forEach(propertyset -> {
-										PropertySet_SMLS p_set = this.propertysets.get(propertyset.getURI());
-										if (p_set != null)
-											p_set.connect(so, uncompressed_guid_storey);
-									});
-
-							IfcOWLUtils.listContained_StoreyElements(storey, ifcOWL).stream().map(rn -> rn.asResource())
-									.forEach(element -> {
-										if (RDFUtils.getType(element.asResource()).get().getURI().endsWith("#IfcSpace"))
-											return;
-										connectElement(so, element);
-									});
-
-							IfcOWLUtils.listStoreySpaces(storey.asResource(), ifcOWL).stream().forEach(space -> {
-								if (!RDFUtils.getType(space.asResource()).get().getURI().endsWith("#IfcSpace"))
-									return;
-								System.out.println("Space: " + space.asResource().getURI());
-								Resource spo = createformattedURI(space.asResource(), lbd_general_output_model,
-										"Space");
-								String guid_space = IfcOWLUtils.getGUID(space.asResource(), this.ifcOWL);
-								String uncompressed_guid_space = GuidCompressor.uncompressGuidString(guid_space);
-								addAttrributes(lbd_general_output_model, space.asResource(), spo);
-
-								so.addProperty(LBD_NS.BOT.hasSpace, spo);
-								addBoundingBox(spo, guid_space);
-								spo.addProperty(RDF.type, LBD_NS.BOT.space);
-
-								IfcOWLUtils.listContained_SpaceElements(space.asResource(), ifcOWL).stream()
-										.map(rn -> rn.asResource()).forEach(element -> {
-											connectElement(spo, element);
-										});
-
-								IfcOWLUtils.listAdjacent_SpaceElements(space.asResource(), ifcOWL).stream()
-										.map(rn -> rn.asResource()).forEach(element -> {
-											connectElement(spo, LBD_NS.BOT.adjacentElement, element);
-										});
-
-								IfcOWLUtils.listPropertysets(space.asResource(), ifcOWL).stream()
-										.map(rn -> rn.asResource()).forEach(propertyset -> {
-											PropertySet_SMLS p_set = this.propertysets.get(propertyset.getURI());
-											if (p_set != null) {
-												p_set.connect(spo, uncompressed_guid_space);
-											}
-										});
-							});
-						});
+				List<Resource> storeys = new ArrayList<>();
+				relationships.listStoreys(building).stream().map(rn -> rn.asResource()).forEach(storeys::add);
+				if (parallelism > 1 && storeys.size() > 1)
+					handleStoreysInParallel(bo, storeys);
+				else
+					storeys.forEach(storey -> handleStorey(bo, storey, lbd_general_output_model));
 			});
 		});
 
@@ -287,12 +425,100 @@ public class IFCtoLBDConverter_BIM4Ren {
 		}
 	}
 
+	/**
+	 * Converts the storeys of a building on a fork-join pool. Each storey is
+	 * written into its own model, and the models are merged into the output in
+	 * the storey order. When the ifcOWL graph is in TDB2, each worker uses its
+	 * own read transaction.
+	 */
+	private void handleStoreysInParallel(Resource bo, List<Resource> storeys) {
+		ForkJoinPool pool = workerPool();
+		List<ForkJoinTask<Model>> tasks = new ArrayList<>();
+		for (Resource storey : storeys)
+			tasks.add(pool.submit(() -> {
+				Model storey_model = ModelFactory.createDefaultModel();
+				inIfcOWLRead(() -> handleStorey(bo, storey, storey_model));
+				return storey_model;
+			}));
+		mergeInOrder(tasks);
+	}
+
+	/**
+	 * @param bo     the building in the output model
+	 * @param storey the ifcOWL storey
+	 * @param out    the model where the storey subtree is written
+	 */
+	private void handleStorey(Resource bo, Resource storey, Model out) {
+		if (!RDFUtils.getType(storey.asResource()).get().getURI().endsWith("#IfcBuildingStorey")) {
+			System.err.println("No an #IfcBuildingStorey");
+			return;
+		}
+
+		Resource so = createformattedURI(storey, out, "Storey");
+		String guid_storey = guids.getGUID(storey);
+		String uncompressed_guid_storey = guids.getUncompressedGUID(storey);
+
+		addAttrributes(out, storey, so);
+
+		out.add(bo, LBD_NS.BOT.hasStorey, so);
+		addBoundingBox(so, guid_storey);
+		so.addProperty(RDF.type, LBD_NS.BOT.storey);
+
+		relationships.listPropertysets(storey).stream().map(rn -> rn.asResource()).forEach(propertyset -> {
+			PropertySet_SMLS p_set = this.propertysets.get(propertyset.getURI());
+			if (p_set != null)
+				p_set.connect(so, uncompressed_guid_storey);
+		});
+
+		relationships.listContained_StoreyElements(storey).stream().map(rn -> rn.asResource()).forEach(element -> {
+			if (RDFUtils.getType(element.asResource()).get().getURI().endsWith("#IfcSpace"))
+				return;
+			connectElement(so, element);
+		});
+
+		relationships.listStoreySpaces(storey.asResource()).stream().forEach(space -> {
+			if (!RDFUtils.getType(space.asResource()).get().getURI().endsWith("#IfcSpace"))
+				return;
+			System.out.println("Space: " + space.asResource().getURI());
+			Resource spo = createformattedURI(space.asResource(), out, "Space");
+			String guid_space = guids.getGUID(space.asResource());
+			String uncompressed_guid_space = guids.getUncompressedGUID(space.asResource());
+			addAttrributes(out, space.asResource(), spo);
+
+			so.addProperty(LBD_NS.BOT.hasSpace, spo);
+			addBoundingBox(spo, guid_space);
+			spo.addProperty(RDF.type, LBD_NS.BOT.space);
+
+			relationships.listContained_SpaceElements(space.asResource()).stream().map(rn -> rn.asResource())
+					.forEach(element -> {
+						connectElement(spo, element);
+					});
+
+			relationships.listAdjacent_SpaceElements(space.asResource()).stream().map(rn -> rn.asResource())
+					.forEach(element -> {
+						connectElement(spo, LBD_NS.BOT.adjacentElement, element);
+					});
+
+			relationships.listPropertysets(space.asResource()).stream().map(rn -> rn.asResource())
+					.forEach(propertyset -> {
+						PropertySet_SMLS p_set = this.propertysets.get(propertyset.getURI());
+						if (p_set != null) {
+							p_set.connect(spo, uncompressed_guid_space);
+						}
+					});
+		});
+	}
+
 	private void addBoundingBox(Resource sp, String guid) {
 
 		try {
-			BoundingBox bb = this.bounding_boxes.getBoundingBox(guid);
+			// Blocks only until the geometry generation is done
+			IFCBoundingBoxes boxes = this.bounding_boxes.get();
+			if (boxes == null)
+				return;
+			BoundingBox bb = boxes.getBoundingBox(guid);
 			if (bb != null && has_geometry.add(sp)) {
-				Resource sp_blank = this.lbd_general_output_model.createResource();
+				Resource sp_blank = sp.getModel().createResource();
 				sp.addProperty(LBD_NS.GEO.hasGeometry, sp_blank);
 				sp_blank.addLiteral(LBD_NS.GEO.asWKT, bb.toString());
 			}
@@ -303,6 +529,7 @@ public class IFCtoLBDConverter_BIM4Ren {
 	}
 
 	private final Map<String, String> unitmap = new HashMap<>();
+	private UnitResolver unit_resolver;
 
 	/**
 	 * Collects the PropertySet data from the ifcOWL model and creates a separate
@@ -332,103 +559,91 @@ public class IFCtoLBDConverter_BIM4Ren {
 			if (named_unit != null && si_unit != null)
 				unitmap.put(named_unit.toLowerCase(), si_unit);
 		}
+		unit_resolver = new UnitResolver(unitmap, compact_value_nodes ? this.uriBase : null);
 
-		IfcOWLUtils.listPropertysets(ifcOWL, ifcowl_model).stream().map(rn -> rn.asResource()).forEach(propertyset -> {
-
-			RDFStep[] pname_path = { new RDFStep(ifcOWL.getName_IfcRoot()), new RDFStep(ifcOWL.getHasString()) };
-
-//			if (RDFUtils.pathQuery(propertyset, pname_path).get(0).isLiteral()
-//					&& RDFUtils.pathQuery(propertyset, pname_path).get(0).asLiteral().getString().startsWith("Pset")) 
-			{
-				String psetName = RDFUtils.pathQuery(propertyset, pname_path).get(0).asLiteral().getString();
-
-				final List<RDFNode> propertyset_name = new ArrayList<>();
-				RDFUtils.pathQuery(propertyset, pname_path).forEach(name -> propertyset_name.add(name));
-				System.out.println("pset: " + propertyset);
-				RDFStep[] path = { new RDFStep(ifcOWL.getHasProperties_IfcPropertySet()) };
-				RDFUtils.pathQuery(propertyset, path).forEach(propertySingleValue -> {
-
-					RDFStep[] name_path = { new RDFStep(ifcOWL.getName_IfcProperty()),
-							new RDFStep(ifcOWL.getHasString()) };
-					final List<RDFNode> property_name = new ArrayList<>();
-					RDFUtils.pathQuery(propertySingleValue.asResource(), name_path)
-							.forEach(name -> property_name.add(name));
-
-					if (property_name.size() == 0)
-						return; // =
-					final List<RDFNode> property_value = new ArrayList<>();
-					final List<RDFNode> property_type = new ArrayList<>();
-
-					RDFStep[] type_path = { new RDFStep(ifcOWL.getNominalValue_IfcPropertySingleValue()),
-							new RDFStep(RDF.type) };
-					RDFUtils.pathQuery(propertySingleValue.asResource(), type_path)
-							.forEach(type -> property_type.add(type));
-
-					RDFStep[] value_pathS = { new RDFStep(ifcOWL.getNominalValue_IfcPropertySingleValue()),
-							new RDFStep(ifcOWL.getHasString()) };
-					RDFUtils.pathQuery(propertySingleValue.asResource(), value_pathS)
-							.forEach(value -> property_value.add(value));
-
-					RDFStep[] value_pathD = { new RDFStep(ifcOWL.getNominalValue_IfcPropertySingleValue()),
-							new RDFStep(ifcOWL.getHasDouble()) };
-					RDFUtils.pathQuery(propertySingleValue.asResource(), value_pathD)
-							.forEach(value -> property_value.add(value));
-
-					RDFStep[] value_pathI = { new RDFStep(ifcOWL.getNominalValue_IfcPropertySingleValue()),
-							new RDFStep(ifcOWL.getHasInteger()) };
-					RDFUtils.pathQuery(propertySingleValue.asResource(), value_pathI)
-							.forEach(value -> property_value.add(value));
-
-					RDFStep[] value_pathB = { new RDFStep(ifcOWL.getNominalValue_IfcPropertySingleValue()),
-							new RDFStep(ifcOWL.getHasBoolean()) };
-					RDFUtils.pathQuery(propertySingleValue.asResource(), value_pathB)
-							.forEach(value -> property_value.add(value));
-
-					RDFStep[] value_pathL = { new RDFStep(ifcOWL.getNominalValue_IfcPropertySingleValue()),
-							new RDFStep(ifcOWL.getHasLogical()) };
-					RDFUtils.pathQuery(propertySingleValue.asResource(), value_pathL)
-							.forEach(value -> property_value.add(value));
-
-					RDFNode pname = property_name.get(0);
-					PropertySet_SMLS ps = this.propertysets.get(propertyset.getURI());
-					if (ps == null) {
-						if (!propertyset_name.isEmpty())
-							ps = new PropertySet_SMLS(this.uriBase, lbd_general_output_model, this.ontology_model,
-									propertyset_name.get(0).toString(), unitmap);
-						else
-							ps = new PropertySet_SMLS(this.uriBase, lbd_general_output_model, this.ontology_model, "",
-									unitmap);
-						this.propertysets.put(propertyset.getURI(), ps);
-					}
-					if (property_type.size() > 0) {
-						RDFNode ptype = property_type.get(0);
-						ps.putPnameType(pname.toString(), ptype);
-					}
+		List<Resource> propertysets = new ArrayList<>();
+		IfcOWLUtils.listPropertysets(ifcOWL, ifcowl_model).forEach(rn -> propertysets.add(rn.asResource()));
+		if (parallelism > 1)
+			handlePropertySetsInParallel(propertysets);
+		else {
+			PropertyValueReader.Record record = new PropertyValueReader.Record();
+			for (Resource propertyset : propertysets)
+				handlePropertySet(propertyset, record, lbd_general_output_model);
+		}
+	}
 
-					if (property_value.size() > 0) {
-						RDFNode pvalue = property_value.get(0);
-						if (!pname.toString().equals(pvalue.toString())) {
-							if (pvalue.toString().trim().length() > 0) {
-								if (pvalue.isLiteral()) {
-									String val = pvalue.asLiteral().getLexicalForm();
-									if (val.equals("-1.#IND"))
-										pvalue = ResourceFactory.createTypedLiteral(Double.NaN);
-								}
-								ps.putPnameValue(pname.toString(), pvalue);
-								if (property_type.size() > 0)
-									ps.putPsetPropertyRef(pname);
+	/**
+	 * The property sets are independent, so they are split into slices that the
+	 * workers convert each in one ifcOWL read transaction. PropertySet_SMLS
+	 * objects go to the concurrent propertysets registry, the copied triples into
+	 * a model per slice that is merged into the output in the slice order.
+	 */
+	private void handlePropertySetsInParallel(List<Resource> propertysets) {
+		ForkJoinPool pool = workerPool();
+		int slice = Math.max(1, (propertysets.size() + parallelism * 4 - 1) / (parallelism * 4));
+		List<ForkJoinTask<Model>> tasks = new ArrayList<>();
+		for (int start = 0; start < propertysets.size(); start += slice) {
+			List<Resource> part = propertysets.subList(start, Math.min(start + slice, propertysets.size()));
+			tasks.add(pool.submit(() -> {
+				Model slice_model = ModelFactory.createDefaultModel();
+				PropertyValueReader.Record record = new PropertyValueReader.Record();
+				inIfcOWLRead(() -> {
+					for (Resource propertyset : part)
+						handlePropertySet(propertyset, record, slice_model);
+				});
+				return slice_model;
+			}));
+		}
+		mergeInOrder(tasks);
+	}
+
+	/**
+	 * @param propertyset the ifcOWL property set
+	 * @param record      the reusable value record of the calling thread
+	 * @param out         the model where the copied property triples are written
+	 */
+	private void handlePropertySet(Resource propertyset, PropertyValueReader.Record record, Model out) {
+		PropertyValueReader reader = PropertyValueReader.of(ifcOWL);
+//		if (RDFUtils.pathQuery(propertyset, pname_path).get(0).isLiteral()
+//				&& RDFUtils.pathQuery(propertyset, pname_path).get(0).asLiteral().getString().startsWith("Pset")) 
+		{
+			final List<RDFNode> propertyset_name = reader.listPropertySetNames(propertyset);
+			System.out.println("pset: " + propertyset);
+			reader.listProperties(propertyset).forEach(propertySingleValue -> {
+				if (!reader.read(propertySingleValue.asResource(), record))
+					return; // =
+
+				RDFNode pname = record.getName();
+				PropertySet_SMLS ps = this.propertysets.computeIfAbsent(propertyset.getURI(),
+						uri -> new PropertySet_SMLS(this.uriBase, lbd_general_output_model,
+								propertyset_name.isEmpty() ? "" : propertyset_name.get(0).toString(), unit_resolver));
+				RDFNode ptype = record.getType();
+				if (ptype != null)
+					ps.putPnameType(pname.toString(), ptype);
+
+				RDFNode pvalue = record.getValue();
+				if (pvalue != null) {
+					if (!pname.toString().equals(pvalue.toString())) {
+						if (pvalue.toString().trim().length() > 0) {
+							if (pvalue.isLiteral()) {
+								String val = pvalue.asLiteral().getLexicalForm();
+								if (val.equals("-1.#IND"))
+									pvalue = ResourceFactory.createTypedLiteral(Double.NaN);
 							}
+							ps.putPnameValue(pname.toString(), pvalue);
+							if (ptype != null)
+								ps.putPsetPropertyRef(pname);
 						}
-					} else {
-						ps.putPnameValue(pname.toString(), propertySingleValue);
-						ps.putPsetPropertyRef(pname);
-						RDFUtils.copyTriples(0, propertySingleValue, lbd_general_output_model);
 					}
+				} else {
+					ps.putPnameValue(pname.toString(), propertySingleValue);
+					ps.putPsetPropertyRef(pname);
+					RDFUtils.copyTriples(0, propertySingleValue, out);
+				}
 
-				});
+			});
 
-			}
-		});
+		}
 	}
 
 	/**
@@ -467,38 +682,38 @@ public class IFCtoLBDConverter_BIM4Ren {
 		Optional<Resource> ifcowl_type = RDFUtils.getType(ifc_element);
 		Optional<Resource> bot_type = Optional.empty();
 		if (ifcowl_type.isPresent()) {
-			bot_type = getLBDProductType(ifcowl_type.get().getLocalName());
+			bot_type = getLBDProductType(ifcowl_type.get());
 		}
 
 		if (bot_type.isPresent()) {
-			Resource eo = createformattedURI(ifc_element, this.lbd_general_output_model, bot_type.get().getLocalName());
-			String guid = IfcOWLUtils.getGUID(ifc_element, this.ifcOWL);
-			String uncompressed_guid = GuidCompressor.uncompressGuidString(guid);
+			Model out = bot_resource.getModel();
+			Resource eo = createformattedURI(ifc_element, out, bot_type.get().getLocalName());
+			String guid = guids.getGUID(ifc_element);
+			String uncompressed_guid = guids.getUncompressedGUID(ifc_element);
 			addBoundingBox(eo, guid);
-			Resource lbd_property_object = this.lbd_general_output_model.createResource(eo.getURI());
+			Resource lbd_property_object = out.createResource(eo.getURI());
 			if (predefined_type.isPresent()) {
-				Resource product = this.lbd_general_output_model
-						.createResource(bot_type.get().getURI() + "-" + predefined_type.get());
+				Resource product = out.createResource(bot_type.get().getURI() + "-" + predefined_type.get());
 				lbd_property_object.addProperty(RDF.type, product);
 			}
 			lbd_property_object.addProperty(RDF.type, bot_type.get());
 			eo.addProperty(RDF.type, LBD_NS.BOT.element);
 			bot_resource.addProperty(LBD_NS.BOT.containsElement, eo);
 
-			IfcOWLUtils.listPropertysets(ifc_element, ifcOWL).stream().map(rn -> rn.asResource())
+			relationships.listPropertysets(ifc_element).stream().map(rn -> rn.asResource())
 					.forEach(propertyset -> {
 						PropertySet_SMLS p_set = this.propertysets.get(propertyset.getURI());
 						if (p_set != null)
 							p_set.connect(eo, uncompressed_guid);
 					});
-			addAttrributes(this.lbd_general_output_model, ifc_element, eo);
+			addAttrributes(out, ifc_element, eo);
 
-			IfcOWLUtils.listHosted_Elements(ifc_element, ifcOWL).stream().map(rn -> rn.asResource())
+			relationships.listHosted_Elements(ifc_element).stream().map(rn -> rn.asResource())
 					.forEach(ifc_element2 -> {
 						connectElement(eo, LBD_NS.BOT.hasSubElement, ifc_element2);
 					});
 
-			IfcOWLUtils.listAggregated_Elements(ifc_element, ifcOWL).stream().map(rn -> rn.asResource())
+			relationships.listAggregated_Elements(ifc_element).stream().map(rn -> rn.asResource())
 					.forEach(ifc_element2 -> {
 						connectElement(eo, LBD_NS.BOT.hasSubElement, ifc_element2);
 					});
@@ -520,26 +735,25 @@ public class IFCtoLBDConverter_BIM4Ren {
 		Optional<Resource> ifcowl_type = RDFUtils.getType(ifcowl_element);
 		Optional<Resource> lbd_product_type = Optional.empty();
 		if (ifcowl_type.isPresent()) {
-			lbd_product_type = getLBDProductType(ifcowl_type.get().getLocalName());
+			lbd_product_type = getLBDProductType(ifcowl_type.get());
 		}
 
 		if (lbd_product_type.isPresent()) {
-			Resource lbd_object = createformattedURI(ifcowl_element, this.lbd_general_output_model,
-					lbd_product_type.get().getLocalName());
-			Resource lbd_property_object = this.lbd_general_output_model.createResource(lbd_object.getURI());
+			Model out = bot_resource.getModel();
+			Resource lbd_object = createformattedURI(ifcowl_element, out, lbd_product_type.get().getLocalName());
+			Resource lbd_property_object = out.createResource(lbd_object.getURI());
 
 			if (predefined_type.isPresent()) {
-				Resource product = this.lbd_general_output_model
-						.createResource(lbd_product_type.get().getURI() + "-" + predefined_type.get());
+				Resource product = out.createResource(lbd_product_type.get().getURI() + "-" + predefined_type.get());
 				lbd_property_object.addProperty(RDF.type, product);
 			}
 
 			lbd_property_object.addProperty(RDF.type, lbd_product_type.get());
 			lbd_object.addProperty(RDF.type, LBD_NS.BOT.element);
 
-			addAttrributes(this.lbd_general_output_model, ifcowl_element, lbd_object);
+			addAttrributes(out, ifcowl_element, lbd_object);
 			bot_resource.addProperty(bot_property, lbd_object);
-			IfcOWLUtils.listHosted_Elements(ifcowl_element, ifcOWL).stream().map(rn -> rn.asResource())
+			relationships.listHosted_Elements(ifcowl_element).stream().map(rn -> rn.asResource())
 					.forEach(ifc_element2 -> {
 						if (lbd_object.getLocalName().toLowerCase().contains("space"))
 							System.out
@@ -547,7 +761,7 @@ public class IFCtoLBDConverter_BIM4Ren {
 						connectElement(lbd_object, LBD_NS.BOT.hasSubElement, ifc_element2);
 					});
 
-			IfcOWLUtils.listAggregated_Elements(ifcowl_element, ifcOWL).stream().map(rn -> rn.asResource())
+			relationships.listAggregated_Elements(ifcowl_element).stream().map(rn -> rn.asResource())
 					.forEach(ifc_element2 -> {
 						connectElement(lbd_object, LBD_NS.BOT.hasSubElement, ifc_element2);
 					});
@@ -557,7 +771,7 @@ public class IFCtoLBDConverter_BIM4Ren {
 
 	}
 
-	Set<Resource> handledSttributes4resource = new HashSet<>();
+	Set<Resource> handledSttributes4resource = ConcurrentHashMap.newKeySet();
 
 	/**
 	 * Creates and adds the literal triples from the original ifcOWL resource under
@@ -572,10 +786,11 @@ public class IFCtoLBDConverter_BIM4Ren {
 	private void addAttrributes(Model output_model, Resource r, Resource bot_r) {
 		if (!handledSttributes4resource.add(r)) // Tests if the attributes are added already
 			return;
-		String guid = IfcOWLUtils.getGUID(r, this.ifcOWL);
+		String guid = guids.getGUID(r);
 		addBoundingBox(bot_r, guid);
-		String uncompressed_guid = GuidCompressor.uncompressGuidString(guid);
-		final AttributeSet_SMLS connected_attributes = new AttributeSet_SMLS(this.uriBase, output_model, this.unitmap);
+		String uncompressed_guid = guids.getUncompressedGUID(r);
+		final AttributeSet_SMLS connected_attributes = new AttributeSet_SMLS(this.uriBase, output_model,
+				this.unit_resolver);
 		r.listProperties().forEachRemaining(s -> {
 			String ps = s.getPredicate().getLocalName();
 			Resource attr = s.getObject().asResource();
@@ -625,7 +840,7 @@ public class IFCtoLBDConverter_BIM4Ren {
 	 * @return
 	 */
 	private Resource createformattedURI(Resource r, Model m, String product_type) {
-		String guid = IfcOWLUtils.getGUID(r, this.ifcOWL);
+		String guid = guids.getGUID(r);
 		if (guid == null) {
 			String localName = r.getLocalName();
 			if (localName.startsWith("IfcPropertySingleValue")) {
@@ -643,8 +858,7 @@ public class IFCtoLBDConverter_BIM4Ren {
 			uri.addProperty(OWL.sameAs, r);
 			return uri;
 		} else {
-			Resource guid_uri = m.createResource(
-					this.uriBase + product_type.toLowerCase() + "_" + GuidCompressor.uncompressGuidString(guid));
+			Resource guid_uri = m.createResource(guids.getIRI(r, this.uriBase + product_type.toLowerCase() + "_"));
 			System.out.println("sameas 3: " + r);
 			guid_uri.addProperty(OWL.sameAs, r);
 			return guid_uri;
@@ -652,13 +866,12 @@ public class IFCtoLBDConverter_BIM4Ren {
 	}
 
 	private Resource getformattedURI(Resource r, Model m, String product_type) {
-		String guid = IfcOWLUtils.getGUID(r, this.ifcOWL);
+		String guid = guids.getGUID(r);
 		if (guid == null) {
 			Resource uri = m.getResource(this.uriBase + product_type + "/" + r.getLocalName());
 			return uri;
 		} else {
-			Resource guid_uri = m
-					.getResource(this.uriBase + product_type + "/" + GuidCompressor.uncompressGuidString(guid));
+			Resource guid_uri = m.getResource(this.uriBase + product_type + "/" + guids.getUncompressedGUID(r));
 			return guid_uri;
 		}
 	}
@@ -674,13 +887,26 @@ public class IFCtoLBDConverter_BIM4Ren {
 	private List<Resource> listElements() {
 		final List<Resource> ret = new ArrayList<>();
 		ifcowl_model.listStatements().filterKeep(t1 -> t1.getPredicate().equals(RDF.type)).filterKeep(t2 -> {
-			Optional<Resource> product_type = getLBDProductType(t2.getObject().asResource().getLocalName());
+			Optional<Resource> product_type = getLBDProductType(t2.getObject().asResource());
 			return product_type.isPresent();
 		}).mapWith(t1 -> t1.getSubject()).forEachRemaining(s -> ret.add(s));
 
 		return ret;
 	}
 
+	/**
+	 * getLBDProductType(String ifcType) memoized by the ifcOWL class node.
+	 * 
+	 * @param ifc_class The IFC entity class
+	 * @return The corresponding class Resource in a LBD ontology
+	 */
+	private Optional<Resource> getLBDProductType(Resource ifc_class) {
+		if (!ifc_class.isURIResource())
+			return Optional.empty();
+		return lbd_product_types.computeIfAbsent(ifc_class.asNode(),
+				n -> getLBDProductType(ifc_class.getLocalName()));
+	}
+
 	/**
 	 * This used the ifcowl_product_map map and returns one mapped class in a Linked
 	 * Building Data ontology, if specified.
@@ -785,22 +1011,28 @@ public class IFCtoLBDConverter_BIM4Ren {
 			IfcSpfReader rj = new IfcSpfReader();
 			File tempFile = File.createTempFile("ifc", ".ttl");
 			try {
-				Model m = ModelFactory.createDefaultModel();
-				m.setNsPrefix("rdf", RDF.uri);
-				m.setNsPrefix("rdfs", RDFS.uri);
-				m.setNsPrefix("owl", OWL.getURI());
-				m.setNsPrefix("xsd", "http://www.w3.org/2001/XMLSchema#");
-				m.setNsPrefix("inst", uriBase);
-
 				this.ontURI = rj.convert(ifc_file, tempFile.getAbsolutePath(), uriBase);
-				File t2 = filterContent(tempFile);
-				RDFDataMgr.read(m, t2.getAbsolutePath());
+				if (ifcowl_storage.useDisk(tempFile.length())) {
+					System.out.println("Disk-backed ifcOWL graph (TDB2)");
+					ifcowl_store = TDB2IfcOWLStore.load(tempFile, uriBase, filter_configuration);
+					Model m = ifcowl_store.getModel();
+					ifcowl_store.executeWrite(() -> setIfcOWLPrefixes(m, uriBase));
+					return m;
+				}
+
+				Model m = ModelFactory.createDefaultModel();
+				setIfcOWLPrefixes(m, uriBase);
+				FilteringStreamRDF filter = new FilteringStreamRDF(StreamRDFLib.graph(m.getGraph()), uriBase,
+						filter_configuration);
+				RDFDataMgr.parse(filter, tempFile.getAbsolutePath(), Lang.TTL);
+				System.out.println("ifcOWL triples accepted: " + filter.getAcceptedCount() + " filtered out: "
+						+ filter.getRejectedCount());
 
 				return m;
 			} catch (IOException e) {
 				e.printStackTrace();
 			} finally {
-				tempFile.deleteOnExit();
+				tempFile.delete();
 			}
 
 		} catch (Exception e) {
@@ -811,143 +1043,12 @@ public class IFCtoLBDConverter_BIM4Ren {
 		return ModelFactory.createOntologyModel(OntModelSpec.OWL_MEM);
 	}
 
-	private File filterContent(File whole_content_file) {
-		File tempFile = null;
-		int state = 0;
-		try {
-			tempFile = File.createTempFile("ifc", ".ttl");
-			try (BufferedWriter writer = new BufferedWriter(new FileWriter(tempFile))) {
-				try (BufferedReader br = new BufferedReader(new FileReader(whole_content_file))) {
-					String line;
-					String[] triple = new String[3];
-					for (int i = 0; i < 3; i++)
-						triple[i] = "";
-					while ((line = br.readLine()) != null) {
-						String trimmed = line.trim();
-						if (!line.contains("@prefix") && !trimmed.startsWith("#")) {
-							int len = trimmed.length();
-							if (len > 0) {
-								List<String> t;
-								if (trimmed.endsWith(".") || trimmed.endsWith(";"))
-									t = split(trimmed.substring(0, trimmed.length() - 1));
-								else
-									t = split(trimmed.substring(0, trimmed.length()));
-								if (state == 0) {
-									for (int i = 0; i < t.size(); i++)
-										triple[i] = t.get(i);
-
-									if (trimmed.endsWith("."))
-										state = 0;
-									else
-										state = 1;
-									if (t.size() == 3) {
-										StringBuffer sb = new StringBuffer();
-										sb.append(t.get(0));
-										sb.append(" ");
-										sb.append(t.get(1));
-										sb.append(" ");
-										sb.append(t.get(2));
-										sb.append(" .");
-										line = sb.toString();
-									} else
-										continue;
-								} else {
-									for (int i = 0; i < t.size(); i++)
-										triple[2 - i] = t.get(t.size() - 1 - i);
-
-									StringBuffer sb = new StringBuffer();
-									sb.append(triple[0]);
-									sb.append(" ");
-									sb.append(triple[1]);
-									sb.append(" ");
-									sb.append(triple[2]);
-									sb.append(" .");
-									line = sb.toString();
-
-									if (trimmed.endsWith("."))
-										state = 0;
-								}
-							}
-						}
-						line = new String(line.getBytes(), StandardCharsets.UTF_8);
-						if (line.contains("inst:IfcFace"))
-							continue;
-						if (line.contains("inst:IfcPolyLoop"))
-							continue;
-						if (line.contains("inst:IfcCartesianPoint"))
-							continue;
-						if (line.contains("inst:IfcOwnerHistory"))
-							continue;
-						if (line.contains("inst:IfcRelAssociatesMaterial"))
-							continue;
-
-						if (line.contains("inst:IfcExtrudedAreaSolid"))
-							continue;
-						if (line.contains("inst:IfcCompositeCurve"))
-							continue;
-						if (line.contains("inst:IfcSurfaceStyleRendering"))
-							continue;
-						if (line.contains("inst:IfcStyledItem"))
-							continue;
-						if (line.contains("inst:IfcShapeRepresentation"))
-							continue;
-
-						writer.write(line.trim());
-						writer.newLine();
-					}
-					writer.flush();
-
-				} catch (IOException e) {
-					e.printStackTrace();
-				}
-			} catch (IOException e1) {
-				e1.printStackTrace();
-			}
-		} catch (IOException e2) {
-			e2.printStackTrace();
-		}
-		return tempFile;
-	}
-
-	private List<String> split(String s) {
-		List<String> ret = new ArrayList<>();
-		int state = 0;
-		StringBuffer sb = new StringBuffer();
-		for (int i = 0; i < s.length(); i++) {
-			char c = s.charAt(i);
-			switch (state) {
-			case 2:
-				if (c == '\"' || c == '\'')
-					state = 0;
-				sb.append(c);
-				break;
-			case 1:
-				if (c == '\"' || c == '\'') {
-					ret.add(sb.toString());
-					sb = new StringBuffer();
-					sb.append(c);
-					state = 2;
-				} else if (!Character.isSpace(c)) {
-					ret.add(sb.toString());
-					sb = new StringBuffer();
-					sb.append(c);
-					state = 0;
-				}
-				break;
-			case 0:
-				if (c == '\"' || c == '\'') {
-					sb.append(c);
-					state = 2;
-				} else if (Character.isSpace(c))
-					state = 1;
-				else
-					sb.append(c);
-				break;
-			}
-		}
-		if (sb.length() > 0)
-			ret.add(sb.toString());
-		return ret;
+	private static void setIfcOWLPrefixes(Model m, String uriBase) {
+		m.setNsPrefix("rdf", RDF.uri);
+		m.setNsPrefix("rdfs", RDFS.uri);
+		m.setNsPrefix("owl", OWL.getURI());
+		m.setNsPrefix("xsd", "http://www.w3.org/2001/XMLSchema#");
+		m.setNsPrefix("inst", uriBase);
 	}
 
 	/**
@@ -997,24 +1098,23 @@ public class IFCtoLBDConverter_BIM4Ren {
 	 * 
 	 * @param ifc_file the absolute path (For example: c:\ifcfiles\ifc_file.ifc) for
 	 *                 the IFC file
+	 * @return the ifcOWL ontology, to be added to the ifcOWL model
 	 */
-	private void readInOntologies(String ifc_file) {
-		IfcOWLUtils.readIfcOWLOntology(ifc_file, ontology_model);
-		IfcOWLUtils.readIfcOWLOntology(ifc_file, ifcowl_model);
+	private Model readInOntologies(String ifc_file) {
+		// The ifcOWL ontology is parsed once for both models
+		Model ifcowl_ontology = ModelFactory.createDefaultModel();
+		IfcOWLUtils.readIfcOWLOntology(ifc_file, ifcowl_ontology);
+		ontology_model.setNsPrefixes(ifcowl_ontology.getNsPrefixMap());
+		ontology_model.add(ifcowl_ontology);
 
 		readInOntologyTTL(ontology_model, "prod.ttl");
 		readInOntologyTTL(ontology_model, "beo_ontology.ttl");
 		readInOntologyTTL(ontology_model, "prod_furnishing.ttl");
 		readInOntologyTTL(ontology_model, "mep_ontology.ttl");
 
-		readInOntologyTTL(ontology_model, "psetdef.ttl");
-		List<String> files = FileUtils.getListofFiles("pset", ".ttl");
-		for (String file : files) {
-			file = file.substring(file.indexOf("pset"));
-			file = file.replaceAll("\\\\", "/");
-			readInOntologyTTL(ontology_model, file);
-			System.out.println("read ontology file : " + file);
-		}
+		// psetdef.ttl and pset/*.ttl are parsed once per JVM
+		ontology_model.add(PsetDefinitionIndex.getInstance().getModel());
+		return ifcowl_ontology;
 	}
 
 	/**
@@ -1044,8 +1144,8 @@ public class IFCtoLBDConverter_BIM4Ren {
 			// provenance if required in future versions.
 
 			String wktLiteralID = "urn:bot:geom:pt:";
-			String guid_site = IfcOWLUtils.getGUID(site, this.ifcOWL);
-			String uncompressed_guid_site = GuidCompressor.uncompressGuidString(guid_site);
+			String guid_site = guids.getGUID(site);
+			String uncompressed_guid_site = guids.getUncompressedGUID(site);
 			String uncompressed_wktLiteralID = wktLiteralID + uncompressed_guid_site;
 
 			// Create a resource <urn:bot:geom:pt:guid>
@@ -41,8 +41,8 @@ import de.rwth_aachen.dc.lbd_smls.geo.WktLiteral;
 import de.rwth_aachen.dc.lbd_smls.ns.IfcOWLNameSpace;
 import de.rwth_aachen.dc.lbd_smls.ns.LBD_NS;
 import de.rwth_aachen.dc.lbd_smls.ns.OPM;
-import de.rwth_aachen.dc.lbd_smls.utils.FileUtils;
 import de.rwth_aachen.dc.lbd_smls.utils.IfcOWLUtils;
+import de.rwth_aachen.dc.lbd_smls.utils.PropertyValueReader;
 import de.rwth_aachen.dc.lbd_smls.utils.RDFUtils;
 import de.rwth_aachen.dc.lbd_smls.utils.rdfpath.RDFStep;
 
@@ -264,6 +264,7 @@ public class IfcOWLtoLBDConverter_BIM4Ren {
 	}
 
 	private final Map<String, String> unitmap = new HashMap<>();
+	private UnitResolver unit_resolver;
 
 	/**
 	 * Collects the PropertySet data from the ifcOWL model and creates a separate
@@ -293,81 +294,38 @@ public class IfcOWLtoLBDConverter_BIM4Ren {
 			if (named_unit != null && si_unit != null)
 				unitmap.put(named_unit.toLowerCase(), si_unit);
 		}
+		unit_resolver = new UnitResolver(unitmap);
 
-		IfcOWLUtils.listPropertysets(ifcOWL, ifcowl_model).stream().map(rn -> rn.asResource()).forEach(propertyset -> {
+		PropertyValueReader reader = PropertyValueReader.of(ifcOWL);
+		PropertyValueReader.Record record = new PropertyValueReader.Record();
 
-			RDFStep[] pname_path = { new RDFStep(ifcOWL.getName_IfcRoot()), new RDFStep(ifcOWL.getHasString()) };
+		IfcOWLUtils.listPropertysets(ifcOWL, ifcowl_model).stream().map(rn -> rn.asResource()).forEach(propertyset -> {
 
 //			if (RDFUtils.pathQuery(propertyset, pname_path).get(0).isLiteral()
 //					&& RDFUtils.pathQuery(propertyset, pname_path).get(0).asLiteral().getString().startsWith("Pset")) 
 			{
-				String psetName = RDFUtils.pathQuery(propertyset, pname_path).get(0).asLiteral().getString();
-
-				final List<RDFNode> propertyset_name = new ArrayList<>();
-				RDFUtils.pathQuery(propertyset, pname_path).forEach(name -> propertyset_name.add(name));
-
-				RDFStep[] path = { new RDFStep(ifcOWL.getHasProperties_IfcPropertySet()) };
-				RDFUtils.pathQuery(propertyset, path).forEach(propertySingleValue -> {
+				final List<RDFNode> propertyset_name = reader.listPropertySetNames(propertyset);
 
-					RDFStep[] name_path = { new RDFStep(ifcOWL.getName_IfcProperty()),
-							new RDFStep(ifcOWL.getHasString()) };
-					final List<RDFNode> property_name = new ArrayList<>();
-					RDFUtils.pathQuery(propertySingleValue.asResource(), name_path)
-							.forEach(name -> property_name.add(name));
-
-					if (property_name.size() == 0)
+				reader.listProperties(propertyset).forEach(propertySingleValue -> {
+					if (!reader.read(propertySingleValue.asResource(), record))
 						return; // =
-					final List<RDFNode> property_value = new ArrayList<>();
-					final List<RDFNode> property_type = new ArrayList<>();
-
-					RDFStep[] type_path = { new RDFStep(ifcOWL.getNominalValue_IfcPropertySingleValue()),
-							new RDFStep(RDF.type) };
-					RDFUtils.pathQuery(propertySingleValue.asResource(), type_path)
-							.forEach(type -> property_type.add(type));
-
-					RDFStep[] value_pathS = { new RDFStep(ifcOWL.getNominalValue_IfcPropertySingleValue()),
-							new RDFStep(ifcOWL.getHasString()) };
-					RDFUtils.pathQuery(propertySingleValue.asResource(), value_pathS)
-							.forEach(value -> property_value.add(value));
-
-					RDFStep[] value_pathD = { new RDFStep(ifcOWL.getNominalValue_IfcPropertySingleValue()),
-							new RDFStep(ifcOWL.getHasDouble()) };
-					RDFUtils.pathQuery(propertySingleValue.asResource(), value_pathD)
-							.forEach(value -> property_value.add(value));
-
-					RDFStep[] value_pathI = { new RDFStep(ifcOWL.getNominalValue_IfcPropertySingleValue()),
-							new RDFStep(ifcOWL.getHasInteger()) };
-					RDFUtils.pathQuery(propertySingleValue.asResource(), value_pathI)
-							.forEach(value -> property_value.add(value));
-
-					RDFStep[] value_pathB = { new RDFStep(ifcOWL.getNominalValue_IfcPropertySingleValue()),
-							new RDFStep(ifcOWL.getHasBoolean()) };
-					RDFUtils.pathQuery(propertySingleValue.asResource(), value_pathB)
-							.forEach(value -> property_value.add(value));
-
-					RDFStep[] value_pathL = { new RDFStep(ifcOWL.getNominalValue_IfcPropertySingleValue()),
-							new RDFStep(ifcOWL.getHasLogical()) };
-					RDFUtils.pathQuery(propertySingleValue.asResource(), value_pathL)
-							.forEach(value -> property_value.add(value));
-
-					RDFNode pname = property_name.get(0);
+
+					RDFNode pname = record.getName();
 					PropertySet_SMLS ps = this.propertysets.get(propertyset.getURI());
 					if (ps == null) {
 						if (!propertyset_name.isEmpty())
-							ps = new PropertySet_SMLS(this.uriBase.get(), lbd_general_output_model, this.ontology_model,
-									propertyset_name.get(0).toString(), unitmap);
+							ps = new PropertySet_SMLS(this.uriBase.get(), lbd_general_output_model,
+									propertyset_name.get(0).toString(), unit_resolver);
 						else
-							ps = new PropertySet_SMLS(this.uriBase.get(), lbd_general_output_model, this.ontology_model,
-									"", unitmap);
+							ps = new PropertySet_SMLS(this.uriBase.get(), lbd_general_output_model, "", unit_resolver);
 						this.propertysets.put(propertyset.getURI(), ps);
 					}
-					if (property_type.size() > 0) {
-						RDFNode ptype = property_type.get(0);
+					RDFNode ptype = record.getType();
+					if (ptype != null)
 						ps.putPnameType(pname.toString(), ptype);
-					}
 
-					if (property_value.size() > 0) {
-						RDFNode pvalue = property_value.get(0);
+					RDFNode pvalue = record.getValue();
+					if (pvalue != null) {
 						if (!pname.toString().equals(pvalue.toString())) {
 							if (pvalue.toString().trim().length() > 0) {
 								if (pvalue.isLiteral()) {
@@ -376,7 +334,7 @@ public class IfcOWLtoLBDConverter_BIM4Ren {
 										pvalue = ResourceFactory.createTypedLiteral(Double.NaN);
 								}
 								ps.putPnameValue(pname.toString(), pvalue);
-								if (property_type.size() > 0)
+								if (ptype != null)
 									ps.putPsetPropertyRef(pname);
 							}
 						}
@@ -541,7 +499,7 @@ public class IfcOWLtoLBDConverter_BIM4Ren {
 		else
 			uncompressed_guid = GuidCompressor.uncompressGuidString(guid);
 		final AttributeSet_SMLS connected_attributes = new AttributeSet_SMLS(this.uriBase.get(), output_model,
-				this.unitmap);
+				this.unit_resolver);
 		r.listProperties().forEachRemaining(s -> {
 			String ps = s.getPredicate().getLocalName();
 			// In case there are non-standard attributes
@@ -921,14 +879,8 @@ public class IfcOWLtoLBDConverter_BIM4Ren {
 		readInOntologyTTL(ontology_model, "prod_furnishing.ttl");
 		readInOntologyTTL(ontology_model, "mep_ontology.ttl");
 
-		readInOntologyTTL(ontology_model, "psetdef.ttl");
-		List<String> files = FileUtils.getListofFiles("pset", ".ttl");
-		for (String file : files) {
-			file = file.substring(file.indexOf("pset"));
-			file = file.replaceAll("\\\\", "/");
-			readInOntologyTTL(ontology_model, file);
-			System.out.println("read ontology file : " + file);
-		}
+		// psetdef.ttl and pset/*.ttl are parsed once per JVM
+		ontology_model.add(PsetDefinitionIndex.getInstance().getModel());
 	}
 
 	/**
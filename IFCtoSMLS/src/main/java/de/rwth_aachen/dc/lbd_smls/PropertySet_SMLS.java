@@ -4,19 +4,16 @@ import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 import java.util.ArrayList;
 import java.util.HashMap;
-import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 
-import org.apache.jena.rdf.model.Literal;
 import org.apache.jena.rdf.model.Model;
 import org.apache.jena.rdf.model.Property;
 import org.apache.jena.rdf.model.RDFNode;
 import org.apache.jena.rdf.model.Resource;
-import org.apache.jena.rdf.model.StmtIterator;
 import org.apache.jena.sparql.function.library.leviathan.rnd;
-import org.apache.jena.vocabulary.RDF;
 
 import de.rwth_aachen.dc.lbd_smls.ns.LBD_NS;
 import de.rwth_aachen.dc.lbd_smls.ns.OPM;
@@ -44,7 +41,7 @@ import de.rwth_aachen.dc.lbd_smls.utils.StringOperations;
  *
  */
 public class PropertySet_SMLS {
-	private final Map<String, String> unitmap;
+	private final UnitResolver units;
 
 	private class PsetProperty {
 		final Property p; // Jena RDF property
@@ -65,18 +62,11 @@ public class PropertySet_SMLS {
 	private final Map<String, RDFNode> mapPnameType = new HashMap<>();
 	private final Map<String, RDFNode> mapBSDD = new HashMap<>();
 
-	private boolean is_bSDD_pset = false;
-	private Resource psetDef = null;
+	private final PsetDefinitionIndex.PsetDefinition psetDef;
 
-	public PropertySet_SMLS(String uriBase, Model lbd_model, Model ontology_model, String propertyset_name,
-			Map<String, String> unitmap) {
-		this.unitmap = unitmap;
-		StmtIterator iter = ontology_model.listStatements(null, LBD_NS.PROPS_NS.namePset, propertyset_name);
-		if (iter.hasNext()) {
-
-			is_bSDD_pset = true;
-			psetDef = iter.next().getSubject();
-		}
+	public PropertySet_SMLS(String uriBase, Model lbd_model, String propertyset_name, UnitResolver units) {
+		this.units = units;
+		this.psetDef = PsetDefinitionIndex.getInstance().get(propertyset_name);
 		this.uriBase = uriBase;
 		this.lbd_model = lbd_model;
 		this.propertyset_name = propertyset_name;
@@ -91,24 +81,12 @@ public class PropertySet_SMLS {
 	}
 
 	public void putPsetPropertyRef(RDFNode property) {
-		String pname = property.asLiteral().getString();
-		if (is_bSDD_pset) {
-			StmtIterator iter = psetDef.listProperties(LBD_NS.PROPS_NS.propertyDef);
-			while (iter.hasNext()) {
-				Resource prop = iter.next().getResource();
-				StmtIterator iterProp = prop.listProperties(LBD_NS.PROPS_NS.namePset);
-				while (iterProp.hasNext()) {
-					Literal psetPropName = iterProp.next().getLiteral();
-					if (psetPropName.getString().equals(pname))
-						mapBSDD.put(StringOperations.toCamelCase(property.toString()), prop);
-					else {
-						String camel_name = StringOperations.toCamelCase(property.toString());
-						if (psetPropName.getString().toUpperCase().equals(camel_name.toUpperCase()))
-							mapBSDD.put(camel_name, prop);
-					}
-				}
-			}
-		}
+		if (psetDef == null)
+			return;
+		String camel_name = StringOperations.toCamelCase(property.toString());
+		Resource prop = psetDef.find(property.asLiteral().getString(), camel_name);
+		if (prop != null)
+			mapBSDD.put(camel_name, prop);
 	}
 
 	/**
@@ -117,7 +95,7 @@ public class PropertySet_SMLS {
 	 * @param lbd_resource   The Jena Resource in the model
 	 * @param extracted_guid The GUID of the elemet in the long form
 	 */
-	Set<String> hashes = new HashSet<>();
+	Set<String> hashes = ConcurrentHashMap.newKeySet();
 
 	public void connect(Resource lbd_resource, String long_guid) {
 
@@ -127,54 +105,11 @@ public class PropertySet_SMLS {
 
 				RDFNode ifc_measurement_type = this.mapPnameType.get(pname);
 				if (ifc_measurement_type != null) {
-					String unit = ifc_measurement_type.asResource().getLocalName().toLowerCase();
-					if (unit.startsWith("ifc"))
-						unit = unit.substring(3);
-					if (unit.startsWith("positive"))
-						unit = unit.substring("positive".length());
-					if (unit.endsWith("measure"))
-						unit = unit.substring(0, unit.length() - "measure".length());
-					String si_unit = this.unitmap.get(unit);
-					if (si_unit != null) {
-						Resource bn = lbd_resource.getModel().createResource();
+					UnitResolver.Unit unit = this.units.resolve(ifc_measurement_type);
+					if (unit.isValueNode()) {
+						Resource bn = this.units.createValueNode(lbd_resource.getModel(),
+								this.mapPnameValue.get(pname), unit);
 						lbd_resource.addProperty(property, bn);
-
-						bn.addProperty(RDF.value, this.mapPnameValue.get(pname));
-
-						if (si_unit.equals("METRE")) {
-							bn.addProperty(LBD_NS.SMLS.unit, LBD_NS.UNIT.METER);
-							//Resource bn_accuracy = lbd_resource.getModel().createResource();
-							//Literal accuracy = lbd_resource.getModel().createTypedLiteral(1f);
-							//bn.addProperty(LBD_NS.SMLS.accuracy, bn_accuracy);
-							//bn_accuracy.addProperty(RDF.value, accuracy);
-
-						} else if (si_unit.equals("SQUARE_METRE")) {
-							bn.addProperty(LBD_NS.SMLS.unit, LBD_NS.UNIT.SQUARE_METRE);
-							//Resource bn_accuracy = lbd_resource.getModel().createResource();
-							//Literal accuracy = lbd_resource.getModel().createTypedLiteral(1f);
-							//bn.addProperty(LBD_NS.SMLS.accuracy, bn_accuracy);
-							//bn_accuracy.addProperty(RDF.value, accuracy);
-
-						} else if (si_unit.equals("CUBIC_METRE")) {
-							bn.addProperty(LBD_NS.SMLS.unit, LBD_NS.UNIT.CUBIC_METRE);
-							//Resource bn_accuracy = lbd_resource.getModel().createResource();
-							//Literal accuracy = lbd_resource.getModel().createTypedLiteral(1f);
-							//bn.addProperty(LBD_NS.SMLS.accuracy, bn_accuracy);
-							//bn_accuracy.addProperty(RDF.value, accuracy);
-
-						} 
-						else if (si_unit.equals("RADIAN")) {
-							bn.addProperty(LBD_NS.SMLS.unit, LBD_NS.UNIT.RADIAN);
-							//Resource bn_accuracy = lbd_resource.getModel().createResource();
-							//Literal accuracy = lbd_resource.getModel().createTypedLiteral(1f);
-							//bn.addProperty(LBD_NS.SMLS.accuracy, bn_accuracy);
-							//bn_accuracy.addProperty(RDF.value, accuracy);
-
-						} 
-						/*else {
-							bn.addProperty(LBD_NS.BEXT.si_unit, si_unit);
-							bn.addProperty(LBD_NS.BEXT.unitType, unit);
-						}*/
 					} else {
 						lbd_resource.addProperty(property, this.mapPnameValue.get(pname));
 					}
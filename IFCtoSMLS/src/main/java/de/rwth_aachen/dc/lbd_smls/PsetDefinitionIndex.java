@@ -0,0 +1,162 @@
+package de.rwth_aachen.dc.lbd_smls;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import org.apache.jena.datatypes.xsd.XSDDatatype;
+import org.apache.jena.rdf.model.Literal;
+import org.apache.jena.rdf.model.Model;
+import org.apache.jena.rdf.model.ModelFactory;
+import org.apache.jena.rdf.model.Resource;
+import org.apache.jena.rdf.model.Statement;
+import org.apache.jena.rdf.model.StmtIterator;
+
+import de.rwth_aachen.dc.lbd_smls.ns.LBD_NS;
+import de.rwth_aachen.dc.lbd_smls.utils.FileUtils;
+
+/*
+ *  Copyright (c) 2020 Jyrki Oraskari (Jyrki.Oraskari@gmail.f)
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+/**
+ * The bSDD property set definitions of psetdef.ttl and pset/*.ttl indexed by
+ * the property set name. Built once per JVM on the first use and read only
+ * after that, so all the conversions share it. The parsed ontology files are
+ * kept as well, for the conversions to add to their ontology model.
+ */
+public class PsetDefinitionIndex {
+
+	/**
+	 * The property definitions of one property set, by the exact name and by
+	 * the upper case name.
+	 */
+	public static class PsetDefinition {
+		private final Resource definition;
+		private final Map<String, Resource> exact = new HashMap<>();
+		private final Map<String, Resource> normalized = new HashMap<>();
+
+		private PsetDefinition(Resource definition) {
+			this.definition = definition;
+			StmtIterator i = definition.listProperties(LBD_NS.PROPS_NS.propertyDef);
+			while (i.hasNext()) {
+				Statement s = i.next();
+				if (!s.getObject().isResource())
+					continue;
+				Resource prop = s.getResource();
+				StmtIterator names = prop.listProperties(LBD_NS.PROPS_NS.namePset);
+				while (names.hasNext()) {
+					Statement n = names.next();
+					if (!n.getObject().isLiteral())
+						continue;
+					String name = n.getLiteral().getString();
+					exact.put(name, prop);
+					normalized.put(name.toUpperCase(), prop);
+				}
+			}
+		}
+
+		public Resource getDefinition() {
+			return definition;
+		}
+
+		/**
+		 * @param property_name the property name in the IFC file
+		 * @param camel_name    the camel case form of the name
+		 * @return the bSDD property definition, null if not defined
+		 */
+		public Resource find(String property_name, String camel_name) {
+			Resource ret = exact.get(property_name);
+			if (ret == null)
+				ret = normalized.get(camel_name.toUpperCase());
+			return ret;
+		}
+	}
+
+	private static class Holder {
+		static final PsetDefinitionIndex INSTANCE = new PsetDefinitionIndex();
+	}
+
+	private final Model pset_model;
+	private final Map<String, PsetDefinition> psets;
+
+	private PsetDefinitionIndex() {
+		Model m = ModelFactory.createDefaultModel();
+		IFCtoLBDConverter_BIM4Ren.readInOntologyTTL(m, "psetdef.ttl");
+		// The files are parsed in parallel and added in the list order
+		List<Model> file_models = listPsetFiles().parallelStream().map(file -> {
+			Model fm = ModelFactory.createDefaultModel();
+			IFCtoLBDConverter_BIM4Ren.readInOntologyTTL(fm, file);
+			System.out.println("read ontology file : " + file);
+			return fm;
+		}).collect(Collectors.toList());
+		for (Model fm : file_models)
+			m.add(fm);
+		this.pset_model = m;
+
+		Map<String, PsetDefinition> index = new HashMap<>();
+		StmtIterator i = m.listStatements(null, LBD_NS.PROPS_NS.namePset, (String) null);
+		while (i.hasNext()) {
+			Statement s = i.next();
+			if (!s.getObject().isLiteral())
+				continue;
+			Literal l = s.getLiteral();
+			// The lookup was a plain string literal match
+			if (!l.getLanguage().isEmpty() || !XSDDatatype.XSDstring.getURI().equals(l.getDatatypeURI()))
+				continue;
+			// The property definitions share the name predicate
+			if (!s.getSubject().hasProperty(LBD_NS.PROPS_NS.propertyDef))
+				continue;
+			if (!index.containsKey(l.getString()))
+				index.put(l.getString(), new PsetDefinition(s.getSubject()));
+		}
+		this.psets = Collections.unmodifiableMap(index);
+	}
+
+	/**
+	 * @return the shared index
+	 */
+	public static PsetDefinitionIndex getInstance() {
+		return Holder.INSTANCE;
+	}
+
+	/**
+	 * @return the pset/*.ttl resource paths
+	 */
+	static List<String> listPsetFiles() {
+		return FileUtils.getResourceFiles("pset", ".ttl");
+	}
+
+	/**
+	 * @return psetdef.ttl and the pset/*.ttl files. Shared, only to be read.
+	 */
+	public Model getModel() {
+		return pset_model;
+	}
+
+	/**
+	 * @param pset_name the name of the property set in the IFC file
+	 * @return the bSDD definition, null if the set is not defined
+	 */
+	public PsetDefinition get(String pset_name) {
+		return psets.get(pset_name);
+	}
+
+	public int size() {
+		return psets.size();
+	}
+}
@@ -0,0 +1,192 @@
+package de.rwth_aachen.dc.lbd_smls;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.Objects;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.apache.jena.graph.Node;
+import org.apache.jena.rdf.model.Model;
+import org.apache.jena.rdf.model.RDFNode;
+import org.apache.jena.rdf.model.Resource;
+import org.apache.jena.riot.out.NodeFmtLib;
+import org.apache.jena.vocabulary.RDF;
+
+import de.rwth_aachen.dc.lbd_smls.ns.LBD_NS;
+
+/*
+ *  Copyright (c) 2020 Jyrki Oraskari (Jyrki.Oraskari@gmail.f)
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+/**
+ * Resolves the IFC measure type of a property value to the way the value is
+ * written out: as a plain value, or as a node with rdf:value and the
+ * smls:unit of the project SI unit. The measure type name is parsed once per
+ * type node and conversion, after the project units are read.
+ * 
+ * The value nodes are blank nodes, one per element and property. In the
+ * compact mode the same (value, unit) pair is one shared IRI node instead.
+ */
+public class UnitResolver {
+
+	/**
+	 * How the values of one measure type are written
+	 */
+	public static class Unit {
+		private final boolean value_node;
+		private final Resource unit;
+
+		private Unit(boolean value_node, Resource unit) {
+			this.value_node = value_node;
+			this.unit = unit;
+		}
+
+		/**
+		 * @return true if the value is written on a node with rdf:value
+		 */
+		public boolean isValueNode() {
+			return value_node;
+		}
+
+		/**
+		 * @return the smls:unit of the value node, null if none is known
+		 */
+		public Resource getUnit() {
+			return unit;
+		}
+	}
+
+	private static final Unit PLAIN = new Unit(false, null);
+
+	// (value, unit) of a shared value node
+	private static class ValueKey {
+		final Node value;
+		final Node unit;
+
+		ValueKey(Node value, Node unit) {
+			this.value = value;
+			this.unit = unit;
+		}
+
+		@Override
+		public int hashCode() {
+			return 31 * value.hashCode() + Objects.hashCode(unit);
+		}
+
+		@Override
+		public boolean equals(Object o) {
+			if (!(o instanceof ValueKey))
+				return false;
+			ValueKey k = (ValueKey) o;
+			return value.equals(k.value) && Objects.equals(unit, k.unit);
+		}
+	}
+
+	private final Map<String, String> unitmap;
+	private final Map<Node, Unit> units = new ConcurrentHashMap<>();
+
+	private final String value_uri_base;
+	private final Map<ValueKey, String> value_nodes = new ConcurrentHashMap<>();
+
+	/**
+	 * @param unitmap the project units: the lower case IFC unit type without
+	 *                "unit" to the SI unit name. Not changed after this.
+	 */
+	public UnitResolver(Map<String, String> unitmap) {
+		this(unitmap, null);
+	}
+
+	/**
+	 * @param unitmap        the project units: the lower case IFC unit type
+	 *                       without "unit" to the SI unit name. Not changed
+	 *                       after this.
+	 * @param value_uri_base the namespace of the shared value nodes, null for
+	 *                       blank value nodes
+	 */
+	public UnitResolver(Map<String, String> unitmap, String value_uri_base) {
+		this.unitmap = unitmap;
+		this.value_uri_base = value_uri_base;
+	}
+
+	/**
+	 * @param measure_type the IFC type of the value, e.g. IfcLengthMeasure
+	 * @return how the value is written
+	 */
+	public Unit resolve(RDFNode measure_type) {
+		return units.computeIfAbsent(measure_type.asNode(), n -> parse(measure_type.asResource()));
+	}
+
+	/**
+	 * Creates the rdf:value node of a value in the model. In the compact mode
+	 * the IRI is derived from the value and the unit, so the equal pairs share
+	 * one node also across the models that are merged later.
+	 * 
+	 * @param m     the output model
+	 * @param value the property value
+	 * @param unit  the resolved unit of the value type
+	 * @return the value node
+	 */
+	public Resource createValueNode(Model m, RDFNode value, Unit unit) {
+		Resource node;
+		if (value_uri_base == null)
+			node = m.createResource();
+		else {
+			ValueKey key = new ValueKey(value.asNode(), unit.unit == null ? null : unit.unit.asNode());
+			node = m.createResource(value_nodes.computeIfAbsent(key, k -> value_uri_base + "value_"
+					+ UUID.nameUUIDFromBytes(valueKeyString(k).getBytes(StandardCharsets.UTF_8))));
+		}
+		node.addProperty(RDF.value, value);
+		if (unit.unit != null)
+			node.addProperty(LBD_NS.SMLS.unit, unit.unit);
+		return node;
+	}
+
+	private static String valueKeyString(ValueKey k) {
+		return NodeFmtLib.str(k.value) + " " + (k.unit == null ? "" : NodeFmtLib.str(k.unit));
+	}
+
+	/**
+	 * @return the number of distinct shared value nodes created
+	 */
+	public int getValueNodeCount() {
+		return value_nodes.size();
+	}
+
+	private Unit parse(Resource measure_type) {
+		String unit = measure_type.getLocalName().toLowerCase();
+		if (unit.startsWith("ifc"))
+			unit = unit.substring(3);
+		if (unit.startsWith("positive"))
+			unit = unit.substring("positive".length());
+		if (unit.endsWith("measure"))
+			unit = unit.substring(0, unit.length() - "measure".length());
+		String si_unit = this.unitmap.get(unit);
+		if (si_unit == null)
+			return PLAIN;
+		switch (si_unit) {
+		case "METRE":
+			return new Unit(true, LBD_NS.UNIT.METER);
+		case "SQUARE_METRE":
+			return new Unit(true, LBD_NS.UNIT.SQUARE_METRE);
+		case "CUBIC_METRE":
+			return new Unit(true, LBD_NS.UNIT.CUBIC_METRE);
+		case "RADIAN":
+			return new Unit(true, LBD_NS.UNIT.RADIAN);
+		default:
+			return new Unit(true, null);
+		}
+	}
+}
@@ -0,0 +1,102 @@
+package de.rwth_aachen.dc.lbd_smls.tests;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.apache.jena.graph.Graph;
+import org.apache.jena.rdf.model.Model;
+import org.apache.jena.rdf.model.ModelFactory;
+import org.apache.jena.rdf.model.Property;
+import org.apache.jena.rdf.model.Resource;
+import org.apache.jena.riot.Lang;
+import org.apache.jena.riot.RDFDataMgr;
+import org.apache.jena.riot.system.StreamRDFLib;
+
+import be.ugent.IfcSpfReader;
+import de.rwth_aachen.dc.lbd_smls.utils.filter.FilterConfiguration;
+import de.rwth_aachen.dc.lbd_smls.utils.filter.FilteringStreamRDF;
+import de.rwth_aachen.dc.lbd_smls.utils.graph.CompactGraph;
+import de.rwth_aachen.dc.lbd_smls.utils.rdfpath.InvRDFStep;
+import de.rwth_aachen.dc.lbd_smls.utils.rdfpath.RDFStep;
+
+/**
+ * Compares the heap use and the traversal speed of the filtered ifcOWL model
+ * in Jena's GraphMem and in CompactGraph. The traversal follows every
+ * property of every subject forwards (RDFStep) and backwards (InvRDFStep).
+ * The IFC file is given as the first argument. Run with a fixed heap (-Xms =
+ * -Xmx) for stable memory figures.
+ */
+public class Benchmark_CompactGraph {
+	private static final String URI_BASE = "https://dot.dc.rwth-aachen.de/IFCtoLBDset#";
+	private static final int ROUNDS = 5;
+
+	private static long usedHeap() {
+		Runtime rt = Runtime.getRuntime();
+		for (int i = 0; i < 3; i++)
+			System.gc();
+		return rt.totalMemory() - rt.freeMemory();
+	}
+
+	private static long traverse(Model m, List<Resource> subjects, List<Property> properties) {
+		long visited = 0;
+		for (Resource r : subjects) {
+			Resource s = m.createResource(r.getURI());
+			for (Property p : properties) {
+				visited += new RDFStep(p).next(s).size();
+				visited += new InvRDFStep(p).next(s).size();
+			}
+		}
+		return visited;
+	}
+
+	private static void time(String name, Model m, List<Resource> subjects, List<Property> properties) {
+		long visited = traverse(m, subjects, properties);
+		long start = System.nanoTime();
+		for (int i = 0; i < ROUNDS; i++)
+			traverse(m, subjects, properties);
+		long ms = (System.nanoTime() - start) / 1000000 / ROUNDS;
+		System.out.println(name + ": " + ms + " ms per traversal, " + visited + " nodes visited");
+	}
+
+	public static void main(String[] args) {
+		if (args.length < 1) {
+			System.out.println("Usage: Benchmark_CompactGraph <ifc file>");
+			return;
+		}
+		try {
+			File ttl = File.createTempFile("ifc", ".ttl");
+			ttl.deleteOnExit();
+			new IfcSpfReader().convert(args[0], ttl.getAbsolutePath(), URI_BASE);
+
+			long base = usedHeap();
+			Model mem_model = ModelFactory.createDefaultModel();
+			RDFDataMgr.parse(new FilteringStreamRDF(StreamRDFLib.graph(mem_model.getGraph()), URI_BASE,
+					FilterConfiguration.defaults()), ttl.getAbsolutePath(), Lang.TTL);
+			long mem_bytes = usedHeap() - base;
+
+			Graph compact = CompactGraph.freeze(mem_model.getGraph());
+			long both = usedHeap() - base;
+			Model compact_model = ModelFactory.createModelForGraph(compact);
+			System.out.println("Triples: " + mem_model.size());
+			System.out.println("GraphMem heap: " + mem_bytes / 1024 + " kB");
+			System.out.println("CompactGraph heap: " + (both - mem_bytes) / 1024 + " kB");
+
+			List<Resource> subjects = new ArrayList<>();
+			mem_model.listSubjects().filterKeep(r -> r.isURIResource()).forEachRemaining(subjects::add);
+			Set<Property> property_set = new LinkedHashSet<>();
+			mem_model.listStatements().mapWith(st -> st.getPredicate()).forEachRemaining(property_set::add);
+			List<Property> properties = new ArrayList<>(property_set);
+			// Keep the run time reasonable on big models
+			if (subjects.size() > 20000)
+				subjects = subjects.subList(0, 20000);
+
+			time("GraphMem", mem_model, subjects, properties);
+			time("CompactGraph", compact_model, subjects, properties);
+		} catch (Exception e) {
+			e.printStackTrace();
+		}
+	}
+}
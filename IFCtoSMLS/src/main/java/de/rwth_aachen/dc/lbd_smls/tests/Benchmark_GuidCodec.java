@@ -0,0 +1,83 @@
+package de.rwth_aachen.dc.lbd_smls.tests;
+
+import java.util.UUID;
+
+import com.openifctools.guidcompressor.GuidCompressor;
+
+/**
+ * Compares the original String based GuidCompressor conversion with the char
+ * array codec, in both directions. The number of random GUIDs can be given as
+ * the first argument.
+ */
+public class Benchmark_GuidCodec {
+	private static final int WARMUP_ROUNDS = 3;
+	private static final int ROUNDS = 10;
+
+	private interface Codec {
+		long run(String[] input);
+	}
+
+	private static long time(String name, String[] input, Codec codec) {
+		long check = 0;
+		for (int i = 0; i < WARMUP_ROUNDS; i++)
+			check += codec.run(input);
+		long start = System.nanoTime();
+		for (int i = 0; i < ROUNDS; i++)
+			check += codec.run(input);
+		long ns = (System.nanoTime() - start) / ROUNDS / input.length;
+		System.out.println(name + ": " + ns + " ns per GUID (check " + check + ")");
+		return ns;
+	}
+
+	public static void main(String[] args) {
+		int count = args.length > 0 ? Integer.parseInt(args[0]) : 200000;
+		String[] uncompressed = new String[count];
+		String[] compressed = new String[count];
+		for (int i = 0; i < count; i++) {
+			uncompressed[i] = UUID.randomUUID().toString();
+			compressed[i] = GuidCompressor.compressGuidString(uncompressed[i]);
+		}
+
+		time("uncompress, legacy", compressed, in -> {
+			long c = 0;
+			for (String s : in)
+				c += GuidCompressor.uncompressGuidStringLegacy(s).charAt(0);
+			return c;
+		});
+		time("uncompress, String", compressed, in -> {
+			long c = 0;
+			for (String s : in)
+				c += GuidCompressor.uncompressGuidString(s).charAt(0);
+			return c;
+		});
+		time("uncompress, char[]", compressed, in -> {
+			char[] buffer = new char[GuidCompressor.UNCOMPRESSED_LENGTH];
+			long c = 0;
+			for (String s : in)
+				if (GuidCompressor.uncompressGuid(s, buffer, 0))
+					c += buffer[0];
+			return c;
+		});
+
+		time("compress, legacy", uncompressed, in -> {
+			long c = 0;
+			for (String s : in)
+				c += GuidCompressor.compressGuidStringLegacy(s).charAt(0);
+			return c;
+		});
+		time("compress, String", uncompressed, in -> {
+			long c = 0;
+			for (String s : in)
+				c += GuidCompressor.compressGuidString(s).charAt(0);
+			return c;
+		});
+		time("compress, char[]", uncompressed, in -> {
+			char[] buffer = new char[GuidCompressor.COMPRESSED_LENGTH];
+			long c = 0;
+			for (String s : in)
+				if (GuidCompressor.compressGuid(s, buffer, 0))
+					c += buffer[0];
+			return c;
+		});
+	}
+}
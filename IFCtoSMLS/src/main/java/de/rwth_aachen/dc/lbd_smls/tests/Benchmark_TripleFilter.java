@@ -0,0 +1,222 @@
+package de.rwth_aachen.dc.lbd_smls.tests;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileReader;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.jena.rdf.model.Model;
+import org.apache.jena.rdf.model.ModelFactory;
+import org.apache.jena.riot.Lang;
+import org.apache.jena.riot.RDFDataMgr;
+import org.apache.jena.riot.system.StreamRDFLib;
+
+import be.ugent.IfcSpfReader;
+import de.rwth_aachen.dc.lbd_smls.utils.filter.FilterConfiguration;
+import de.rwth_aachen.dc.lbd_smls.utils.filter.FilteringStreamRDF;
+
+/**
+ * Compares the old line based filterContent of IFCtoLBDConverter_BIM4Ren with
+ * the triple level FilteringStreamRDF. Both read the same IfcSpfReader output
+ * into a Jena model. The IFC file is given as the first argument.
+ */
+public class Benchmark_TripleFilter {
+	private static final String URI_BASE = "https://dot.dc.rwth-aachen.de/IFCtoLBDset#";
+	private static final int WARMUP_ROUNDS = 2;
+	private static final int ROUNDS = 5;
+
+	private static Model runLegacy(File ttl) {
+		Model m = ModelFactory.createDefaultModel();
+		File filtered = legacyFilterContent(ttl);
+		RDFDataMgr.read(m, filtered.getAbsolutePath());
+		filtered.delete();
+		return m;
+	}
+
+	private static Model runTripleFilter(File ttl) {
+		Model m = ModelFactory.createDefaultModel();
+		FilteringStreamRDF filter = new FilteringStreamRDF(StreamRDFLib.graph(m.getGraph()), URI_BASE,
+				FilterConfiguration.defaults());
+		RDFDataMgr.parse(filter, ttl.getAbsolutePath(), Lang.TTL);
+		return m;
+	}
+
+	private static long time(String name, File ttl, boolean legacy) {
+		long size = 0;
+		for (int i = 0; i < WARMUP_ROUNDS; i++)
+			size = (legacy ? runLegacy(ttl) : runTripleFilter(ttl)).size();
+		long start = System.nanoTime();
+		for (int i = 0; i < ROUNDS; i++)
+			size = (legacy ? runLegacy(ttl) : runTripleFilter(ttl)).size();
+		long ms = (System.nanoTime() - start) / 1000000 / ROUNDS;
+		System.out.println(name + ": " + ms + " ms per round, " + size + " triples kept, "
+				+ (ms > 0 ? size * 1000 / ms : size) + " kept triples/s");
+		return ms;
+	}
+
+	public static void main(String[] args) {
+		if (args.length < 1) {
+			System.out.println("Usage: Benchmark_TripleFilter <ifc file>");
+			return;
+		}
+		try {
+			File ttl = File.createTempFile("ifc", ".ttl");
+			ttl.deleteOnExit();
+			new IfcSpfReader().convert(args[0], ttl.getAbsolutePath(), URI_BASE);
+			System.out.println("ifcOWL Turtle: " + ttl.length() + " bytes");
+
+			long legacy = time("filterContent (line based)", ttl, true);
+			long triples = time("FilteringStreamRDF (triple level)", ttl, false);
+			if (triples > 0)
+				System.out.println("Speed-up: " + String.format("%.2f", (double) legacy / triples));
+		} catch (Exception e) {
+			e.printStackTrace();
+		}
+	}
+
+	// The filter that was used before FilteringStreamRDF, kept as the baseline
+
+	private static File legacyFilterContent(File whole_content_file) {
+		File tempFile = null;
+		int state = 0;
+		try {
+			tempFile = File.createTempFile("ifc", ".ttl");
+			try (BufferedWriter writer = new BufferedWriter(new FileWriter(tempFile))) {
+				try (BufferedReader br = new BufferedReader(new FileReader(whole_content_file))) {
+					String line;
+					String[] triple = new String[3];
+					for (int i = 0; i < 3; i++)
+						triple[i] = "";
+					while ((line = br.readLine()) != null) {
+						String trimmed = line.trim();
+						if (!line.contains("@prefix") && !trimmed.startsWith("#")) {
+							int len = trimmed.length();
+							if (len > 0) {
+								List<String> t;
+								if (trimmed.endsWith(".") || trimmed.endsWith(";"))
+									t = split(trimmed.substring(0, trimmed.length() - 1));
+								else
+									t = split(trimmed.substring(0, trimmed.length()));
+								if (state == 0) {
+									for (int i = 0; i < t.size(); i++)
+										triple[i] = t.get(i);
+
+									if (trimmed.endsWith("."))
+										state = 0;
+									else
+										state = 1;
+									if (t.size() == 3) {
+										StringBuffer sb = new StringBuffer();
+										sb.append(t.get(0));
+										sb.append(" ");
+										sb.append(t.get(1));
+										sb.append(" ");
+										sb.append(t.get(2));
+										sb.append(" .");
+										line = sb.toString();
+									} else
+										continue;
+								} else {
+									for (int i = 0; i < t.size(); i++)
+										triple[2 - i] = t.get(t.size() - 1 - i);
+
+									StringBuffer sb = new StringBuffer();
+									sb.append(triple[0]);
+									sb.append(" ");
+									sb.append(triple[1]);
+									sb.append(" ");
+									sb.append(triple[2]);
+									sb.append(" .");
+									line = sb.toString();
+
+									if (trimmed.endsWith("."))
+										state = 0;
+								}
+							}
+						}
+						line = new String(line.getBytes(), StandardCharsets.UTF_8);
+						if (line.contains("inst:IfcFace"))
+							continue;
+						if (line.contains("inst:IfcPolyLoop"))
+							continue;
+						if (line.contains("inst:IfcCartesianPoint"))
+							continue;
+						if (line.contains("inst:IfcOwnerHistory"))
+							continue;
+						if (line.contains("inst:IfcRelAssociatesMaterial"))
+							continue;
+
+						if (line.contains("inst:IfcExtrudedAreaSolid"))
+							continue;
+						if (line.contains("inst:IfcCompositeCurve"))
+							continue;
+						if (line.contains("inst:IfcSurfaceStyleRendering"))
+							continue;
+						if (line.contains("inst:IfcStyledItem"))
+							continue;
+						if (line.contains("inst:IfcShapeRepresentation"))
+							continue;
+
+						writer.write(line.trim());
+						writer.newLine();
+					}
+					writer.flush();
+
+				} catch (IOException e) {
+					e.printStackTrace();
+				}
+			} catch (IOException e1) {
+				e1.printStackTrace();
+			}
+		} catch (IOException e2) {
+			e2.printStackTrace();
+		}
+		return tempFile;
+	}
+
+	private static List<String> split(String s) {
+		List<String> ret = new ArrayList<>();
+		int state = 0;
+		StringBuffer sb = new StringBuffer();
+		for (int i = 0; i < s.length(); i++) {
+			char c = s.charAt(i);
+			switch (state) {
+			case 2:
+				if (c == '\"' || c == '\'')
+					state = 0;
+				sb.append(c);
+				break;
+			case 1:
+				if (c == '\"' || c == '\'') {
+					ret.add(sb.toString());
+					sb = new StringBuffer();
+					sb.append(c);
+					state = 2;
+				} else if (!Character.isSpace(c)) {
+					ret.add(sb.toString());
+					sb = new StringBuffer();
+					sb.append(c);
+					state = 0;
+				}
+				break;
+			case 0:
+				if (c == '\"' || c == '\'') {
+					sb.append(c);
+					state = 2;
+				} else if (Character.isSpace(c))
+					state = 1;
+				else
+					sb.append(c);
+				break;
+			}
+		}
+		if (sb.length() > 0)
+			ret.add(sb.toString());
+		return ret;
+	}
+}
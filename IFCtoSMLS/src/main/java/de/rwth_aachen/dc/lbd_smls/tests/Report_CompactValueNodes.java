@@ -0,0 +1,45 @@
+package de.rwth_aachen.dc.lbd_smls.tests;
+
+import java.io.File;
+
+import org.apache.jena.rdf.model.Model;
+
+import de.rwth_aachen.dc.lbd_smls.IFCtoLBDConverter_BIM4Ren;
+import de.rwth_aachen.dc.lbd_smls.utils.artifacts.ArtifactSink;
+
+/**
+ * Converts the IFC files given as arguments with and without the compact
+ * value node mode and prints the output triple counts and the reduction.
+ * The mode is experimental until this report has been run on real models.
+ */
+public class Report_CompactValueNodes {
+	private static final String URI_BASE = "https://dot.dc.rwth-aachen.de/IFCtoLBDset#";
+
+	private static long convert(File ifc_file, boolean compact, int[] value_nodes) {
+		IFCtoLBDConverter_BIM4Ren lbdconverter = new IFCtoLBDConverter_BIM4Ren(ArtifactSink.Mode.NONE);
+		lbdconverter.setCompactValueNodes(compact);
+		Model m = lbdconverter.convert(ifc_file.getAbsolutePath(), URI_BASE);
+		value_nodes[0] = lbdconverter.getValueNodeCount();
+		return m.size();
+	}
+
+	public static void main(String[] args) {
+		if (args.length == 0) {
+			System.err.println("Usage: Report_CompactValueNodes <ifc file>...");
+			return;
+		}
+		StringBuilder report = new StringBuilder();
+		report.append(String.format("%-40s %12s %12s %12s %10s%n", "model", "blank nodes", "compact",
+				"value nodes", "reduction"));
+		for (String arg : args) {
+			File ifc_file = new File(arg);
+			int[] value_nodes = new int[1];
+			long blank = convert(ifc_file, false, value_nodes);
+			long compact = convert(ifc_file, true, value_nodes);
+			double reduction = blank == 0 ? 0 : 100.0 * (blank - compact) / blank;
+			report.append(String.format("%-40s %12d %12d %12d %9.1f%%%n", ifc_file.getName(), blank, compact,
+					value_nodes[0], reduction));
+		}
+		System.out.println(report);
+	}
+}
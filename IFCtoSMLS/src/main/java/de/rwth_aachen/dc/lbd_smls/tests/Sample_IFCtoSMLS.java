@@ -7,12 +7,14 @@ import java.io.OutputStream;
 import org.apache.jena.rdf.model.Model;
 
 import de.rwth_aachen.dc.lbd_smls.IFCtoLBDConverter_BIM4Ren;
+import de.rwth_aachen.dc.lbd_smls.utils.artifacts.ArtifactSink;
 
 public class Sample_IFCtoSMLS {
 	
 	
 	static private void extractLBD_SMLS(File ifcFile, StringBuilder result_string) {
-		IFCtoLBDConverter_BIM4Ren lbdconverter = new IFCtoLBDConverter_BIM4Ren();
+		// The model dumps are written while the result is serialized below
+		IFCtoLBDConverter_BIM4Ren lbdconverter = new IFCtoLBDConverter_BIM4Ren(ArtifactSink.Mode.BACKGROUND);
 		Model m = lbdconverter.convert(ifcFile.getAbsolutePath(), "https://dot.dc.rwth-aachen.de/IFCtoLBDset#");
 
 		OutputStream ttl_output = new OutputStream() {
@@ -31,6 +33,7 @@ public class Sample_IFCtoSMLS {
 		m.write(ttl_output, "TTL");
 		//RDFDataMgr.write(ttl_output, m, RDFFormat.JSONLD_COMPACT_PRETTY);
 		result_string.append(ttl_output.toString());
+		lbdconverter.flushArtifacts();
 	}
 	
 	
@@ -7,8 +7,12 @@ import java.io.InputStream;
 import java.io.InputStreamReader;
 import java.net.URL;
 import java.security.CodeSource;
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.zip.ZipEntry;
 import java.util.zip.ZipInputStream;
 
@@ -73,6 +77,86 @@ public class FileUtils {
 		return goodFiles;
 	}
 
+	// Resource file lists by directory and extension, per JVM
+	private static final Map<String, List<String>> resource_files = new ConcurrentHashMap<>();
+
+	/**
+	 * Returns the resource paths (for example pset/Pset_WallCommon.ttl) of the
+	 * matching files in a resource directory. The list is read from the
+	 * dir/dir.index resource that the build writes. If that is missing, the code
+	 * base is scanned once and the result is kept for the next calls.
+	 * 
+	 * @param dir       the resource directory
+	 * @param extension the searched file extension
+	 * @return the resource paths
+	 */
+	public static List<String> getResourceFiles(String dir, String extension) {
+		return resource_files.computeIfAbsent(dir + " " + extension, k -> {
+			List<String> files = readResourceIndex(dir, extension);
+			if (files == null) {
+				files = new ArrayList<>();
+				for (String file : scanResourceFiles(dir, extension)) {
+					file = file.replaceAll("\\\\", "/");
+					files.add(file.substring(file.indexOf(dir + "/")));
+				}
+			}
+			return Collections.unmodifiableList(files);
+		});
+	}
+
+	private static List<String> readResourceIndex(String dir, String extension) {
+		InputStream in = FileUtils.class.getResourceAsStream("/" + dir + "/" + dir + ".index");
+		if (in == null)
+			return null;
+		List<String> files = new ArrayList<>();
+		try (BufferedReader br = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8))) {
+			String fname;
+			while ((fname = br.readLine()) != null) {
+				fname = fname.trim();
+				if (fname.endsWith(extension))
+					files.add(fname);
+			}
+		} catch (IOException e) {
+			e.printStackTrace();
+			return null;
+		}
+		return files;
+	}
+
+	// The code base is a JAR file or, when run from the build, a directory
+	private static List<String> scanResourceFiles(String dir, String extension) {
+		CodeSource src = FileUtils.class.getProtectionDomain().getCodeSource();
+		if (src == null)
+			return new ArrayList<>();
+		try {
+			File base = new File(src.getLocation().toURI());
+			if (base.isDirectory()) {
+				List<String> goodFiles = new ArrayList<>();
+				File[] listOfFiles = new File(base, dir).listFiles();
+				if (listOfFiles != null)
+					for (File f : listOfFiles)
+						if (f.isFile() && f.getName().contains("_") && f.getName().endsWith(extension))
+							goodFiles.add(dir + "/" + f.getName());
+				return goodFiles;
+			}
+		} catch (Exception e) {
+			e.printStackTrace();
+		}
+		List<String> goodFiles = new ArrayList<>();
+		try (ZipInputStream zip = new ZipInputStream(src.getLocation().openStream())) {
+			ZipEntry e;
+			while ((e = zip.getNextEntry()) != null) {
+				String name = e.getName();
+				if (name.startsWith(dir + "/") || name.startsWith("/" + dir))
+					if (name.contains("_") && name.endsWith(extension))
+						goodFiles.add(name);
+			}
+		} catch (IOException e1) {
+			e1.printStackTrace();
+		}
+		return goodFiles;
+	}
+
 	// https://stackoverflow.com/questions/3923129/get-a-list-of-resources-from-classpath-directory
 	public static List<String> getListofresourceFiles(String path, String dir, String extension) {		
 		List<String> goodFiles = new ArrayList<>();
@@ -0,0 +1,103 @@
+package de.rwth_aachen.dc.lbd_smls.utils;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.apache.jena.graph.Node;
+import org.apache.jena.rdf.model.Resource;
+
+import com.openifctools.guidcompressor.GuidCompressor;
+
+import de.rwth_aachen.dc.lbd_smls.ns.IfcOWLNameSpace;
+
+/*
+ *  Copyright (c) 2020 Jyrki Oraskari (Jyrki.Oraskari@gmail.f)
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+/**
+ * The GUIDs of the ifcOWL elements of one conversion. The compressed GUID is
+ * read from the graph and uncompressed once per element, and the last minted
+ * LBD IRI is kept, so that the several places that name the same element do
+ * not repeat the lookups. Safe to use from the storey worker threads.
+ */
+public class IfcGuidTable {
+	private final IfcOWLNameSpace ifcOWL;
+	private final Map<Node, Entry> entries = new ConcurrentHashMap<>();
+
+	private static final Entry NO_GUID = new Entry(null, null);
+
+	private static class Entry {
+		final String guid;
+		final String uncompressed_guid;
+		// prefix + uncompressed_guid of the last IRI minted for the element
+		volatile String[] iri;
+
+		Entry(String guid, String uncompressed_guid) {
+			this.guid = guid;
+			this.uncompressed_guid = uncompressed_guid;
+		}
+	}
+
+	public IfcGuidTable(IfcOWLNameSpace ifcOWL) {
+		this.ifcOWL = ifcOWL;
+	}
+
+	private Entry entry(Resource r) {
+		return entries.computeIfAbsent(r.asNode(), n -> {
+			String guid = IfcOWLUtils.getGUID(r, ifcOWL);
+			if (guid == null)
+				return NO_GUID;
+			return new Entry(guid, GuidCompressor.uncompressGuidString(guid));
+		});
+	}
+
+	/**
+	 * @param r an ifcOWL element
+	 * @return the compressed IfcGloballyUniqueId, null if the element has none
+	 */
+	public String getGUID(Resource r) {
+		return entry(r).guid;
+	}
+
+	/**
+	 * @param r an ifcOWL element
+	 * @return the uncompressed GUID, null if the element has none
+	 */
+	public String getUncompressedGUID(Resource r) {
+		return entry(r).uncompressed_guid;
+	}
+
+	/**
+	 * @param r      an ifcOWL element
+	 * @param prefix the IRI start, e.g. the uriBase and the product type
+	 * @return prefix followed by the uncompressed GUID, null if the element has
+	 *         no GUID
+	 */
+	public String getIRI(Resource r, String prefix) {
+		Entry e = entry(r);
+		if (e.uncompressed_guid == null)
+			return null;
+		String[] iri = e.iri;
+		if (iri != null && iri[0].equals(prefix))
+			return iri[1];
+		String ret = prefix + e.uncompressed_guid;
+		e.iri = new String[] { prefix, ret };
+		return ret;
+	}
+
+	public int size() {
+		return entries.size();
+	}
+}
@@ -8,7 +8,10 @@ import java.io.InputStream;
 import java.io.InputStreamReader;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
 
 import org.apache.jena.rdf.model.Literal;
 import org.apache.jena.rdf.model.Model;
@@ -23,6 +26,7 @@ import org.apache.jena.vocabulary.RDFS;
 import be.ugent.IfcSpfReader;
 import de.rwth_aachen.dc.lbd_smls.ns.IfcOWLNameSpace;
 import de.rwth_aachen.dc.lbd_smls.utils.rdfpath.InvRDFStep;
+import de.rwth_aachen.dc.lbd_smls.utils.rdfpath.RDFPathPlan;
 import de.rwth_aachen.dc.lbd_smls.utils.rdfpath.RDFStep;
 
 
@@ -67,28 +71,54 @@ public class IfcOWLUtils {
 		return null;
 	}
 
+	// Compiled path templates per ifcOWL namespace and template name
+	private static final Map<String, RDFPathPlan> path_plans = new ConcurrentHashMap<>();
+	private static final RDFPathPlan INSTANCES_PATH = RDFPathPlan.compile(new InvRDFStep(RDF.type));
+
+	private static RDFPathPlan plan(IfcOWLNameSpace ifcOWL, String name, Supplier<RDFStep[]> template) {
+		return path_plans.computeIfAbsent(ifcOWL.getIfcURI() + " " + name, k -> RDFPathPlan.compile(template.get()));
+	}
+
 	// Solution proposed by Simon Steyskal 2018
-	private static RDFStep[] getNextLevelPath(IfcOWLNameSpace ifcOWL) {
-		System.out.println("ifcoWL: "+ifcOWL.getIfcURI());
-		if (ifcOWL.getIfcURI().toUpperCase().indexOf("IFC2X3") != -1) {  // fixed by JO 2020
-			RDFStep[] path = { new InvRDFStep(ifcOWL.getRelatingObject_IfcRelDecomposes()),
-					new RDFStep(ifcOWL.getRelatedObjects_IfcRelDecomposes()) };
+	private static RDFPathPlan getNextLevelPath(IfcOWLNameSpace ifcOWL) {
+		return plan(ifcOWL, "next_level", () -> {
+			if (ifcOWL.getIfcURI().toUpperCase().indexOf("IFC2X3") != -1) { // fixed by JO 2020
+				RDFStep[] path = { new InvRDFStep(ifcOWL.getRelatingObject_IfcRelDecomposes()),
+						new RDFStep(ifcOWL.getRelatedObjects_IfcRelDecomposes()) };
+				return path;
+			} else {
+				RDFStep[] path = { new InvRDFStep(ifcOWL.getProperty("relatingObject_IfcRelAggregates")),
+						new RDFStep(ifcOWL.getProperty("relatedObjects_IfcRelAggregates")) };
+				return path;
+			}
+		});
+	}
+
+	// (inst:X)-[objectPlacement_IfcProduct]->(P1)<-[placementRelTo_IfcLocalPlacement]-(P2)<-[objectPlacement_IfcProduct]-(inst:Y)
+	private static RDFPathPlan getPlacementPath(IfcOWLNameSpace ifcOWL) {
+		return plan(ifcOWL, "placement", () -> {
+			RDFStep[] path = { new RDFStep(ifcOWL.getProperty("objectPlacement_IfcProduct")),
+					new InvRDFStep(ifcOWL.getProperty("placementRelTo_IfcLocalPlacement")),
+					new InvRDFStep(ifcOWL.getProperty("objectPlacement_IfcProduct")) };
 			return path;
-		} else {
-			RDFStep[] path = { new InvRDFStep(ifcOWL.getProperty("relatingObject_IfcRelAggregates")),
-					new RDFStep(ifcOWL.getProperty("relatedObjects_IfcRelAggregates")) };
+		});
+	}
+
+	private static RDFPathPlan getContainedPath(IfcOWLNameSpace ifcOWL) {
+		return plan(ifcOWL, "contained", () -> {
+			RDFStep[] path = {
+					new InvRDFStep(ifcOWL.getProperty("relatingStructure_IfcRelContainedInSpatialStructure")),
+					new RDFStep(ifcOWL.getProperty("relatedElements_IfcRelContainedInSpatialStructure")) };
 			return path;
-		}
+		});
 	}
 
 	public static List<RDFNode> listSites(IfcOWLNameSpace ifcOWL, Model ifcowl_model) {
-		RDFStep[] path = { new InvRDFStep(RDF.type) };
-		return RDFUtils.pathQuery(ifcowl_model.getResource(ifcOWL.getIfcSite()), path);
+		return INSTANCES_PATH.list(ifcowl_model.getResource(ifcOWL.getIfcSite()));
 	}
 
 	public static List<RDFNode> listSites(IfcOWLNameSpace ifcOWL, Model ifcowl_model,Model lbd_general_output_model4_errors ) {
-		RDFStep[] path = { new InvRDFStep(RDF.type) };
-		List<RDFNode> ret= RDFUtils.pathQuery(ifcowl_model.getResource(ifcOWL.getIfcSite()), path);
+		List<RDFNode> ret= INSTANCES_PATH.list(ifcowl_model.getResource(ifcOWL.getIfcSite()));
 		if(ret==null)
 		{
 			addError(lbd_general_output_model4_errors,"model is missing an "+ifcOWL.getIfcSite());	
@@ -99,13 +129,11 @@ public class IfcOWLUtils {
 
 	
 	public static List<RDFNode> listBuilding(IfcOWLNameSpace ifcOWL, Model ifcowl_model) {
-		RDFStep[] path = { new InvRDFStep(RDF.type) };
-		return RDFUtils.pathQuery(ifcowl_model.getResource(ifcOWL.getIfcBuilding()), path);
+		return INSTANCES_PATH.list(ifcowl_model.getResource(ifcOWL.getIfcBuilding()));
 	}
 
 	public static List<RDFNode> listBuilding(IfcOWLNameSpace ifcOWL, Model ifcowl_model,Model lbd_general_output_model4_errors ) {
-		RDFStep[] path = { new InvRDFStep(RDF.type) };
-		List<RDFNode> ret=RDFUtils.pathQuery(ifcowl_model.getResource(ifcOWL.getIfcBuilding()), path);
+		List<RDFNode> ret=INSTANCES_PATH.list(ifcowl_model.getResource(ifcOWL.getIfcBuilding()));
 		
 		if(ret==null)
 		{
@@ -127,7 +155,7 @@ public class IfcOWLUtils {
 	 */
 	public static List<RDFNode> listBuildings(Resource site, IfcOWLNameSpace ifcOWL) {
 		System.out.println("Site: "+site.toString());
-		List<RDFNode> buildings = RDFUtils.pathQuery(site, getNextLevelPath(ifcOWL));
+		List<RDFNode> buildings = getNextLevelPath(ifcOWL).list(site);
 		if (buildings == null || buildings.size() == 0)
 			System.err.println("No Buildings! 1");
 		return buildings;
@@ -135,7 +163,7 @@ public class IfcOWLUtils {
 
 	public static List<RDFNode> listBuildings(Resource site, IfcOWLNameSpace ifcOWL,Model lbd_general_output_model4_errors) {
 		// System.out.println("Site: "+site.toString());
-		List<RDFNode> buildings = RDFUtils.pathQuery(site, getNextLevelPath(ifcOWL));
+		List<RDFNode> buildings = getNextLevelPath(ifcOWL).list(site);
 		if (buildings == null || buildings.size() == 0)
 		{
 			System.err.println("No Buildings! 2");
@@ -157,11 +185,11 @@ public class IfcOWLUtils {
 	 */
 
 	public static List<RDFNode> listStoreys(Resource building, IfcOWLNameSpace ifcOWL) {
-		return RDFUtils.pathQuery(building, getNextLevelPath(ifcOWL));
+		return getNextLevelPath(ifcOWL).list(building);
 	}
 
 	public static List<RDFNode> listStoreys(Resource building, IfcOWLNameSpace ifcOWL,Model lbd_general_output_model4_errors) {
-		List<RDFNode> ret=RDFUtils.pathQuery(building, getNextLevelPath(ifcOWL));
+		List<RDFNode> ret=getNextLevelPath(ifcOWL).list(building);
 		if(ret==null)
 		{
 			addError(lbd_general_output_model4_errors,"model is missing ifcStorey elements");	
@@ -191,11 +219,8 @@ public class IfcOWLUtils {
 	public static List<RDFNode> listStoreySpaces(Resource storey, IfcOWLNameSpace ifcOWL) {
 		List<RDFNode> ret;
 
-		ret = RDFUtils.pathQuery(storey, getNextLevelPath(ifcOWL));
-		RDFStep[] path2 = { new RDFStep(ifcOWL.getProperty("objectPlacement_IfcProduct")),
-				new InvRDFStep(ifcOWL.getProperty("placementRelTo_IfcLocalPlacement")),
-				new InvRDFStep(ifcOWL.getProperty("objectPlacement_IfcProduct")) };
-		ret.addAll(RDFUtils.pathQuery(storey, path2));
+		ret = getNextLevelPath(ifcOWL).list(storey);
+		ret.addAll(getPlacementPath(ifcOWL).list(storey));
 
 		return ret;
 	}
@@ -223,13 +248,8 @@ public class IfcOWLUtils {
 	public static List<RDFNode> listContained_StoreyElements(Resource storey, IfcOWLNameSpace ifcOWL) {
 		List<RDFNode> ret;
 
-		RDFStep[] path1 = { new InvRDFStep(ifcOWL.getProperty("relatingStructure_IfcRelContainedInSpatialStructure")),
-				new RDFStep(ifcOWL.getProperty("relatedElements_IfcRelContainedInSpatialStructure")) };
-		ret = RDFUtils.pathQuery(storey, path1);
-		RDFStep[] path2 = { new RDFStep(ifcOWL.getProperty("objectPlacement_IfcProduct")),
-				new InvRDFStep(ifcOWL.getProperty("placementRelTo_IfcLocalPlacement")),
-				new InvRDFStep(ifcOWL.getProperty("objectPlacement_IfcProduct")) };
-		ret.addAll(RDFUtils.pathQuery(storey, path2));
+		ret = getContainedPath(ifcOWL).list(storey);
+		ret.addAll(getPlacementPath(ifcOWL).list(storey));
 		return ret;
 	}
 
@@ -249,9 +269,7 @@ public class IfcOWLUtils {
 	public static List<RDFNode> listContained_SpaceElements(Resource space, IfcOWLNameSpace ifcOWL) {
 		List<RDFNode> ret;
 
-		RDFStep[] path1 = { new InvRDFStep(ifcOWL.getProperty("relatingStructure_IfcRelContainedInSpatialStructure")),
-				new RDFStep(ifcOWL.getProperty("relatedElements_IfcRelContainedInSpatialStructure")) };
-		ret = RDFUtils.pathQuery(space, path1);
+		ret = getContainedPath(ifcOWL).list(space);
 		return ret;
 	}
 
@@ -269,9 +287,11 @@ public class IfcOWLUtils {
 	public static List<RDFNode> listAdjacent_SpaceElements(Resource space, IfcOWLNameSpace ifcOWL) {
 		List<RDFNode> ret;
 
-		RDFStep[] path1 = { new InvRDFStep(ifcOWL.getProperty("relatingSpace_IfcRelSpaceBoundary")),
-				new RDFStep(ifcOWL.getProperty("relatedBuildingElement_IfcRelSpaceBoundary")) };
-		ret = RDFUtils.pathQuery(space, path1);
+		ret = plan(ifcOWL, "adjacent", () -> {
+			RDFStep[] path1 = { new InvRDFStep(ifcOWL.getProperty("relatingSpace_IfcRelSpaceBoundary")),
+					new RDFStep(ifcOWL.getProperty("relatedBuildingElement_IfcRelSpaceBoundary")) };
+			return path1;
+		}).list(space);
 		return ret;
 	}
 
@@ -295,18 +315,22 @@ public class IfcOWLUtils {
 	public static List<RDFNode> listHosted_Elements(Resource element, IfcOWLNameSpace ifcOWL) {
 		List<RDFNode> ret;
 
-		RDFStep[] path1 = { new InvRDFStep(ifcOWL.getProperty("relatingBuildingElement_IfcRelVoidsElement")),
-				new RDFStep(ifcOWL.getProperty("relatedOpeningElement_IfcRelVoidsElement")),
-				new InvRDFStep(ifcOWL.getProperty("relatingOpeningElement_IfcRelFillsElement")),
-				new RDFStep(ifcOWL.getProperty("relatedBuildingElement_IfcRelFillsElement")) };
-		ret = RDFUtils.pathQuery(element, path1);
-
-		RDFStep[] path2 = { new InvRDFStep(ifcOWL.getProperty("relatingBuildingElement_IfcRelVoidsElement")),
-				new RDFStep(ifcOWL.getProperty("relatedOpeningElement_IfcRelVoidsElement")),
-				new RDFStep(ifcOWL.getProperty("objectPlacement_IfcProduct")),
-				new InvRDFStep(ifcOWL.getProperty("placementRelTo_IfcLocalPlacement")),
-				new InvRDFStep(ifcOWL.getProperty("objectPlacement_IfcProduct")) };
-		ret.addAll(RDFUtils.pathQuery(element, path2));
+		ret = plan(ifcOWL, "hosted_fills", () -> {
+			RDFStep[] path1 = { new InvRDFStep(ifcOWL.getProperty("relatingBuildingElement_IfcRelVoidsElement")),
+					new RDFStep(ifcOWL.getProperty("relatedOpeningElement_IfcRelVoidsElement")),
+					new InvRDFStep(ifcOWL.getProperty("relatingOpeningElement_IfcRelFillsElement")),
+					new RDFStep(ifcOWL.getProperty("relatedBuildingElement_IfcRelFillsElement")) };
+			return path1;
+		}).list(element);
+
+		ret.addAll(plan(ifcOWL, "hosted_placement", () -> {
+			RDFStep[] path2 = { new InvRDFStep(ifcOWL.getProperty("relatingBuildingElement_IfcRelVoidsElement")),
+					new RDFStep(ifcOWL.getProperty("relatedOpeningElement_IfcRelVoidsElement")),
+					new RDFStep(ifcOWL.getProperty("objectPlacement_IfcProduct")),
+					new InvRDFStep(ifcOWL.getProperty("placementRelTo_IfcLocalPlacement")),
+					new InvRDFStep(ifcOWL.getProperty("objectPlacement_IfcProduct")) };
+			return path2;
+		}).list(element));
 
 		return ret;
 	}
@@ -322,9 +346,11 @@ public class IfcOWLUtils {
 	public static List<RDFNode> listAggregated_Elements(Resource element, IfcOWLNameSpace ifcOWL) {
 		List<RDFNode> ret;
 
-		RDFStep[] path1 = { new InvRDFStep(ifcOWL.getProperty("relatingObject_IfcRelDecomposes")),
-				new RDFStep(ifcOWL.getProperty("relatedObjects_IfcRelDecomposes")) };
-		ret = RDFUtils.pathQuery(element, path1);
+		ret = plan(ifcOWL, "aggregated", () -> {
+			RDFStep[] path1 = { new InvRDFStep(ifcOWL.getProperty("relatingObject_IfcRelDecomposes")),
+					new RDFStep(ifcOWL.getProperty("relatedObjects_IfcRelDecomposes")) };
+			return path1;
+		}).list(element);
 		return ret;
 	}
 
@@ -366,16 +392,18 @@ public class IfcOWLUtils {
 	}
 
 	// Solution proposed by Simon Steyskal 2018
-	private static RDFStep[] getPropertySetPath(IfcOWLNameSpace ifcOWL) {
-		if (ifcOWL.getIfcURI().toUpperCase().indexOf("IFC2X3") != -1) {  // fixed by JO 2020
-			RDFStep[] path = { new InvRDFStep(ifcOWL.getRelatedObjects_IfcRelDefines()),
-					new RDFStep(ifcOWL.getRelatingPropertyDefinition_IfcRelDefinesByProperties()) };
-			return path;
-		} else {
-			RDFStep[] path = { new InvRDFStep(ifcOWL.getProperty("relatedObjects_IfcRelDefinesByProperties")),
-					new RDFStep(ifcOWL.getProperty("relatingPropertyDefinition_IfcRelDefinesByProperties")) };
-			return path;
-		}
+	private static RDFPathPlan getPropertySetPath(IfcOWLNameSpace ifcOWL) {
+		return plan(ifcOWL, "propertyset", () -> {
+			if (ifcOWL.getIfcURI().toUpperCase().indexOf("IFC2X3") != -1) { // fixed by JO 2020
+				RDFStep[] path = { new InvRDFStep(ifcOWL.getRelatedObjects_IfcRelDefines()),
+						new RDFStep(ifcOWL.getRelatingPropertyDefinition_IfcRelDefinesByProperties()) };
+				return path;
+			} else {
+				RDFStep[] path = { new InvRDFStep(ifcOWL.getProperty("relatedObjects_IfcRelDefinesByProperties")),
+						new RDFStep(ifcOWL.getProperty("relatingPropertyDefinition_IfcRelDefinesByProperties")) };
+				return path;
+			}
+		});
 	}
 
 	/**
@@ -391,13 +419,12 @@ public class IfcOWLUtils {
 	 * @return the list of the matching RDF nodes.
 	 */
 	public static List<RDFNode> listPropertysets(Resource resource, IfcOWLNameSpace ifcOWL) {
-		return RDFUtils.pathQuery(resource, getPropertySetPath(ifcOWL));
+		return getPropertySetPath(ifcOWL).list(resource);
 	}
 
 	
 	public static List<RDFNode> getProjectSIUnits(IfcOWLNameSpace ifcOWL, Model ifcowl_model) {
-		RDFStep[] path = { new InvRDFStep(RDF.type) };
-		return RDFUtils.pathQuery(ifcowl_model.getResource(ifcOWL.getIfcSIUnit()), path);
+		return INSTANCES_PATH.list(ifcowl_model.getResource(ifcOWL.getIfcSIUnit()));
 	}
 
 	/**
@@ -407,8 +434,7 @@ public class IfcOWLUtils {
 	 * @return the list of the matching RDF nodes.
 	 */
 	public static List<RDFNode> listPropertysets(IfcOWLNameSpace ifcOWL, Model ifcowl_model) {
-		RDFStep[] path = { new InvRDFStep(RDF.type) };
-		return RDFUtils.pathQuery(ifcowl_model.getResource(ifcOWL.getIfcPropertySet()), path);
+		return INSTANCES_PATH.list(ifcowl_model.getResource(ifcOWL.getIfcPropertySet()));
 	}
 
 	public static Optional<String> getPredefinedData(RDFNode rn) {
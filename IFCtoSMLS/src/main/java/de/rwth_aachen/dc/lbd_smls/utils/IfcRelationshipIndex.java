@@ -0,0 +1,262 @@
+package de.rwth_aachen.dc.lbd_smls.utils;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.jena.rdf.model.Model;
+import org.apache.jena.rdf.model.Property;
+import org.apache.jena.rdf.model.RDFNode;
+import org.apache.jena.rdf.model.Resource;
+import org.apache.jena.rdf.model.Statement;
+import org.apache.jena.rdf.model.StmtIterator;
+
+import de.rwth_aachen.dc.lbd_smls.ns.IfcOWLNameSpace;
+
+/*
+ *  Copyright (c) 2020 Jyrki Oraskari (Jyrki.Oraskari@gmail.f)
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+/**
+ * The objectified IFC relationships of an ifcOWL model, resolved in one scan
+ * of the graph. Each relating object is mapped directly to its related
+ * objects, so the list methods of {@link IfcOWLUtils} become single lookups.
+ * The results contain the same nodes, duplicates included, as the
+ * corresponding IfcOWLUtils path queries. The model must not change after
+ * the index is built.
+ */
+public class IfcRelationshipIndex {
+	private static final RDFNode[] NONE = new RDFNode[0];
+
+	// (inst:X)<-[relating]-(inst:IfcRel_xx)-[related]->(inst:Y)
+	private final Map<Resource, RDFNode[]> next_level;
+	private final Map<Resource, RDFNode[]> contained;
+	private final Map<Resource, RDFNode[]> adjacent;
+	private final Map<Resource, RDFNode[]> aggregated;
+	private final Map<Resource, RDFNode[]> propertysets;
+	// The objectPlacement_IfcProduct/placementRelTo_IfcLocalPlacement fallback
+	private final Map<Resource, RDFNode[]> placement_children;
+	// The voids and fills paths and the placement fallback under the openings
+	private final Map<Resource, RDFNode[]> hosted;
+
+	/**
+	 * Collects the relationship properties of a single scan
+	 */
+	private static class Scan {
+		private final Map<Property, Map<Resource, List<RDFNode>>> forward = new HashMap<>();
+		private final Map<Property, Map<Resource, List<RDFNode>>> inverse = new HashMap<>();
+
+		void needForward(Property p) {
+			forward.putIfAbsent(p, new HashMap<>());
+		}
+
+		void needInverse(Property p) {
+			inverse.putIfAbsent(p, new HashMap<>());
+		}
+
+		void add(Statement s) {
+			Map<Resource, List<RDFNode>> f = forward.get(s.getPredicate());
+			if (f != null)
+				f.computeIfAbsent(s.getSubject(), k -> new ArrayList<>(1)).add(s.getObject());
+			Map<Resource, List<RDFNode>> i = inverse.get(s.getPredicate());
+			if (i != null && s.getObject().isResource())
+				i.computeIfAbsent(s.getObject().asResource(), k -> new ArrayList<>(1)).add(s.getSubject());
+		}
+
+		List<RDFNode> forward(Property p, RDFNode r) {
+			if (!r.isResource())
+				return null;
+			return forward.get(p).get(r.asResource());
+		}
+
+		/**
+		 * INVERSE(relating) -> related, for every relating object in the graph
+		 */
+		Map<Resource, RDFNode[]> join(Property relating, Property related) {
+			Map<Resource, RDFNode[]> ret = new HashMap<>();
+			inverse.get(relating).forEach((x, rels) -> {
+				List<RDFNode> ys = new ArrayList<>();
+				for (RDFNode rel : rels) {
+					List<RDFNode> f = forward(related, rel);
+					if (f != null)
+						ys.addAll(f);
+				}
+				if (!ys.isEmpty())
+					ret.put(x, ys.toArray(NONE));
+			});
+			return ret;
+		}
+	}
+
+	public IfcRelationshipIndex(IfcOWLNameSpace ifcOWL, Model ifcowl_model) {
+		boolean ifc2x3 = ifcOWL.getIfcURI().toUpperCase().indexOf("IFC2X3") != -1;
+		Property next_relating = ifc2x3 ? ifcOWL.getRelatingObject_IfcRelDecomposes()
+				: ifcOWL.getProperty("relatingObject_IfcRelAggregates");
+		Property next_related = ifc2x3 ? ifcOWL.getRelatedObjects_IfcRelDecomposes()
+				: ifcOWL.getProperty("relatedObjects_IfcRelAggregates");
+		Property contained_relating = ifcOWL.getProperty("relatingStructure_IfcRelContainedInSpatialStructure");
+		Property contained_related = ifcOWL.getProperty("relatedElements_IfcRelContainedInSpatialStructure");
+		Property boundary_relating = ifcOWL.getProperty("relatingSpace_IfcRelSpaceBoundary");
+		Property boundary_related = ifcOWL.getProperty("relatedBuildingElement_IfcRelSpaceBoundary");
+		Property decomposes_relating = ifcOWL.getProperty("relatingObject_IfcRelDecomposes");
+		Property decomposes_related = ifcOWL.getProperty("relatedObjects_IfcRelDecomposes");
+		Property pset_object = ifc2x3 ? ifcOWL.getRelatedObjects_IfcRelDefines()
+				: ifcOWL.getProperty("relatedObjects_IfcRelDefinesByProperties");
+		Property pset_definition = ifc2x3 ? ifcOWL.getRelatingPropertyDefinition_IfcRelDefinesByProperties()
+				: ifcOWL.getProperty("relatingPropertyDefinition_IfcRelDefinesByProperties");
+		Property voids_relating = ifcOWL.getProperty("relatingBuildingElement_IfcRelVoidsElement");
+		Property voids_related = ifcOWL.getProperty("relatedOpeningElement_IfcRelVoidsElement");
+		Property fills_relating = ifcOWL.getProperty("relatingOpeningElement_IfcRelFillsElement");
+		Property fills_related = ifcOWL.getProperty("relatedBuildingElement_IfcRelFillsElement");
+		Property object_placement = ifcOWL.getProperty("objectPlacement_IfcProduct");
+		Property placement_rel_to = ifcOWL.getProperty("placementRelTo_IfcLocalPlacement");
+
+		Scan scan = new Scan();
+		for (Property p : Arrays.asList(next_relating, contained_relating, boundary_relating, decomposes_relating,
+				pset_object, voids_relating, fills_relating, placement_rel_to, object_placement))
+			scan.needInverse(p);
+		for (Property p : Arrays.asList(next_related, contained_related, boundary_related, decomposes_related,
+				pset_definition, voids_related, fills_related, object_placement))
+			scan.needForward(p);
+
+		StmtIterator it = ifcowl_model.listStatements();
+		try {
+			while (it.hasNext())
+				scan.add(it.next());
+		} finally {
+			it.close();
+		}
+
+		this.next_level = scan.join(next_relating, next_related);
+		this.contained = scan.join(contained_relating, contained_related);
+		this.adjacent = scan.join(boundary_relating, boundary_related);
+		this.aggregated = scan.join(decomposes_relating, decomposes_related);
+		this.propertysets = scan.join(pset_object, pset_definition);
+
+		// (inst:X)-[objectPlacement]->(P1)<-[placementRelTo]-(P2)<-[objectPlacement]-(inst:Y)
+		this.placement_children = new HashMap<>();
+		scan.forward.get(object_placement).forEach((x, placements) -> {
+			List<RDFNode> ys = new ArrayList<>();
+			for (RDFNode p1 : placements)
+				for (RDFNode p2 : inverse(scan, placement_rel_to, p1))
+					ys.addAll(inverse(scan, object_placement, p2));
+			if (!ys.isEmpty())
+				placement_children.put(x, ys.toArray(NONE));
+		});
+
+		Map<Resource, RDFNode[]> fills = scan.join(fills_relating, fills_related);
+		Map<Resource, RDFNode[]> voids = scan.join(voids_relating, voids_related);
+		this.hosted = new HashMap<>();
+		voids.forEach((element, openings) -> {
+			List<RDFNode> ys = new ArrayList<>();
+			for (RDFNode opening : openings)
+				ys.addAll(Arrays.asList(get(fills, opening)));
+			for (RDFNode opening : openings)
+				ys.addAll(Arrays.asList(get(placement_children, opening)));
+			if (!ys.isEmpty())
+				hosted.put(element, ys.toArray(NONE));
+		});
+	}
+
+	private static List<RDFNode> inverse(Scan scan, Property p, RDFNode r) {
+		if (!r.isResource())
+			return new ArrayList<>();
+		List<RDFNode> ret = scan.inverse.get(p).get(r.asResource());
+		return ret == null ? new ArrayList<>() : ret;
+	}
+
+	private static RDFNode[] get(Map<Resource, RDFNode[]> map, RDFNode r) {
+		if (!r.isResource())
+			return NONE;
+		RDFNode[] ret = map.get(r.asResource());
+		return ret == null ? NONE : ret;
+	}
+
+	private static List<RDFNode> list(RDFNode[] nodes) {
+		return new ArrayList<>(Arrays.asList(nodes));
+	}
+
+	/**
+	 * @see IfcOWLUtils#listBuildings(Resource, IfcOWLNameSpace)
+	 */
+	public List<RDFNode> listBuildings(Resource site) {
+		List<RDFNode> buildings = list(get(next_level, site));
+		if (buildings.size() == 0)
+			System.err.println("No Buildings! 1");
+		return buildings;
+	}
+
+	/**
+	 * @see IfcOWLUtils#listStoreys(Resource, IfcOWLNameSpace)
+	 */
+	public List<RDFNode> listStoreys(Resource building) {
+		return list(get(next_level, building));
+	}
+
+	/**
+	 * @see IfcOWLUtils#listStoreySpaces(Resource, IfcOWLNameSpace)
+	 */
+	public List<RDFNode> listStoreySpaces(Resource storey) {
+		List<RDFNode> ret = list(get(next_level, storey));
+		ret.addAll(Arrays.asList(get(placement_children, storey)));
+		return ret;
+	}
+
+	/**
+	 * @see IfcOWLUtils#listContained_StoreyElements(Resource, IfcOWLNameSpace)
+	 */
+	public List<RDFNode> listContained_StoreyElements(Resource storey) {
+		List<RDFNode> ret = list(get(contained, storey));
+		ret.addAll(Arrays.asList(get(placement_children, storey)));
+		return ret;
+	}
+
+	/**
+	 * @see IfcOWLUtils#listContained_SpaceElements(Resource, IfcOWLNameSpace)
+	 */
+	public List<RDFNode> listContained_SpaceElements(Resource space) {
+		return list(get(contained, space));
+	}
+
+	/**
+	 * @see IfcOWLUtils#listAdjacent_SpaceElements(Resource, IfcOWLNameSpace)
+	 */
+	public List<RDFNode> listAdjacent_SpaceElements(Resource space) {
+		return list(get(adjacent, space));
+	}
+
+	/**
+	 * @see IfcOWLUtils#listHosted_Elements(Resource, IfcOWLNameSpace)
+	 */
+	public List<RDFNode> listHosted_Elements(Resource element) {
+		return list(get(hosted, element));
+	}
+
+	/**
+	 * @see IfcOWLUtils#listAggregated_Elements(Resource, IfcOWLNameSpace)
+	 */
+	public List<RDFNode> listAggregated_Elements(Resource element) {
+		return list(get(aggregated, element));
+	}
+
+	/**
+	 * @see IfcOWLUtils#listPropertysets(Resource, IfcOWLNameSpace)
+	 */
+	public List<RDFNode> listPropertysets(Resource resource) {
+		return list(get(propertysets, resource));
+	}
+}
@@ -0,0 +1,188 @@
+package de.rwth_aachen.dc.lbd_smls.utils;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.apache.jena.rdf.model.Property;
+import org.apache.jena.rdf.model.RDFNode;
+import org.apache.jena.rdf.model.Resource;
+import org.apache.jena.rdf.model.Statement;
+import org.apache.jena.rdf.model.StmtIterator;
+import org.apache.jena.vocabulary.RDF;
+
+import de.rwth_aachen.dc.lbd_smls.ns.IfcOWLNameSpace;
+import de.rwth_aachen.dc.lbd_smls.utils.rdfpath.RDFPathPlan;
+import de.rwth_aachen.dc.lbd_smls.utils.rdfpath.RDFStep;
+
+/*
+ *  Copyright (c) 2020 Jyrki Oraskari (Jyrki.Oraskari@gmail.f)
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+/**
+ * Reads the name, the nominal value type and the nominal value of an
+ * IfcPropertySingleValue with one pass over its statements and one over the
+ * statements of each nominal value node. The value is chosen in the order
+ * hasString, hasDouble, hasInteger, hasBoolean, hasLogical.
+ * 
+ * One reader is shared per ifcOWL namespace; the records are per thread.
+ */
+public class PropertyValueReader {
+	private static final Map<String, PropertyValueReader> readers = new ConcurrentHashMap<>();
+
+	// Value slots in the priority order
+	private static final int STRING = 0;
+	private static final int DOUBLE = 1;
+	private static final int INTEGER = 2;
+	private static final int BOOLEAN = 3;
+	private static final int LOGICAL = 4;
+
+	/**
+	 * The values of one IfcPropertySingleValue. Reused for the next one by
+	 * PropertyValueReader.read.
+	 */
+	public static class Record {
+		private RDFNode name;
+		private RDFNode type;
+		private final RDFNode[] values = new RDFNode[5];
+
+		private void clear() {
+			name = null;
+			type = null;
+			for (int i = 0; i < values.length; i++)
+				values[i] = null;
+		}
+
+		/**
+		 * @return the name literal, null if none
+		 */
+		public RDFNode getName() {
+			return name;
+		}
+
+		/**
+		 * @return the class of the nominal value, null if none
+		 */
+		public RDFNode getType() {
+			return type;
+		}
+
+		/**
+		 * @return the nominal value literal, null if none
+		 */
+		public RDFNode getValue() {
+			for (RDFNode v : values)
+				if (v != null)
+					return v;
+			return null;
+		}
+	}
+
+	private final Property name;
+	private final Property nominal_value;
+	private final Property[] value_properties;
+	private final Property has_string;
+
+	private final RDFPathPlan propertyset_name_path;
+	private final RDFPathPlan has_properties_path;
+
+	private PropertyValueReader(IfcOWLNameSpace ifcOWL) {
+		this.name = ifcOWL.getName_IfcProperty();
+		this.nominal_value = ifcOWL.getNominalValue_IfcPropertySingleValue();
+		this.has_string = ifcOWL.getHasString();
+		this.value_properties = new Property[] { ifcOWL.getHasString(), ifcOWL.getHasDouble(),
+				ifcOWL.getHasInteger(), ifcOWL.getHasBoolean(), ifcOWL.getHasLogical() };
+		this.propertyset_name_path = RDFPathPlan.compile(new RDFStep(ifcOWL.getName_IfcRoot()),
+				new RDFStep(ifcOWL.getHasString()));
+		this.has_properties_path = RDFPathPlan.compile(new RDFStep(ifcOWL.getHasProperties_IfcPropertySet()));
+	}
+
+	/**
+	 * @param ifcOWL the ifcOWL version of the model
+	 * @return the shared reader for the namespace
+	 */
+	public static PropertyValueReader of(IfcOWLNameSpace ifcOWL) {
+		return readers.computeIfAbsent(ifcOWL.getIfcURI(), k -> new PropertyValueReader(ifcOWL));
+	}
+
+	/**
+	 * @param propertyset an IfcPropertySet
+	 * @return the name literals of the property set
+	 */
+	public List<RDFNode> listPropertySetNames(Resource propertyset) {
+		return propertyset_name_path.list(propertyset);
+	}
+
+	/**
+	 * @param propertyset an IfcPropertySet
+	 * @return the properties of the property set
+	 */
+	public List<RDFNode> listProperties(Resource propertyset) {
+		return has_properties_path.list(propertyset);
+	}
+
+	/**
+	 * Fills the record with the data of the property.
+	 * 
+	 * @param property an IfcPropertySingleValue (or other IfcProperty)
+	 * @param record   the record that is cleared and filled
+	 * @return true if the property has a name
+	 */
+	public boolean read(Resource property, Record record) {
+		record.clear();
+		StmtIterator i = property.listProperties();
+		try {
+			while (i.hasNext()) {
+				Statement s = i.next();
+				if (!s.getObject().isResource())
+					continue;
+				Property p = s.getPredicate();
+				if (p.equals(nominal_value))
+					readValue(s.getResource(), record);
+				else if (record.name == null && p.equals(name)) {
+					Statement n = s.getResource().getProperty(has_string);
+					if (n != null)
+						record.name = n.getObject();
+				}
+			}
+		} finally {
+			i.close();
+		}
+		return record.name != null;
+	}
+
+	private void readValue(Resource value, Record record) {
+		StmtIterator i = value.listProperties();
+		try {
+			while (i.hasNext()) {
+				Statement s = i.next();
+				Property p = s.getPredicate();
+				if (p.equals(RDF.type)) {
+					if (record.type == null)
+						record.type = s.getObject();
+					continue;
+				}
+				for (int slot = STRING; slot <= LOGICAL; slot++)
+					if (p.equals(value_properties[slot])) {
+						if (record.values[slot] == null)
+							record.values[slot] = s.getObject();
+						break;
+					}
+			}
+		} finally {
+			i.close();
+		}
+	}
+}
@@ -6,11 +6,9 @@ import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.OutputStreamWriter;
 import java.nio.charset.Charset;
-import java.util.ArrayList;
-import java.util.Arrays;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Optional;
-import java.util.stream.Collectors;
 
 import org.apache.jena.rdf.model.Model;
 import org.apache.jena.rdf.model.RDFNode;
@@ -20,6 +18,7 @@ import org.lbd.ifc2lbd.application_messaging.events.IFCtoLBD_SystemStatusEvent;
 
 import com.google.common.eventbus.EventBus;
 
+import de.rwth_aachen.dc.lbd_smls.utils.rdfpath.RDFPathPlan;
 import de.rwth_aachen.dc.lbd_smls.utils.rdfpath.RDFStep;
 
 /*
@@ -39,6 +38,7 @@ import de.rwth_aachen.dc.lbd_smls.utils.rdfpath.RDFStep;
  */
 
 public class RDFUtils {
+	private static final RDFPathPlan TYPE_PATH = RDFPathPlan.compile(new RDFStep(RDF.type));
 
 	/**
 	 * 
@@ -104,23 +104,18 @@ public class RDFUtils {
 	 * @return the list of found noded at the RDF graoh
 	 */
 	public static List<RDFNode> pathQuery(Resource r, RDFStep[] path) {
-		List<RDFStep> path_list = Arrays.asList(path);
-		if (r.getModel() == null)
-			return new ArrayList<RDFNode>();
-		Optional<RDFStep> step = path_list.stream().findFirst();
-		if (step.isPresent()) {
-			List<RDFNode> step_result = step.get().next(r);
-			if (path.length > 1) {
-				final List<RDFNode> result = new ArrayList<RDFNode>();
-				step_result.stream().filter(rn1 -> rn1.isResource()).map(rn2 -> rn2.asResource()).forEach(r1 -> {
-					List<RDFStep> tail = path_list.stream().skip(1).collect(Collectors.toList());
-					result.addAll(pathQuery(r1, tail.toArray(new RDFStep[tail.size()])));
-				});
-				return result;
-			} else
-				return step_result;
-		}
-		return new ArrayList<RDFNode>();
+		return RDFPathPlan.compile(path).list(r);
+	}
+
+	/**
+	 * A helper method to find a list of nodes that match a precompiled RDF path
+	 * 
+	 * @param r    the starting point
+	 * @param plan the compiled path pattern
+	 * @return the list of found noded at the RDF graoh
+	 */
+	public static List<RDFNode> pathQuery(Resource r, RDFPathPlan plan) {
+		return plan.list(r);
 	}
 
 	/**
@@ -134,8 +129,10 @@ public class RDFUtils {
 	 *         graph.
 	 */
 	public static Optional<Resource> getType(Resource r) {
-		RDFStep[] path = { new RDFStep(RDF.type) };
-		return RDFUtils.pathQuery(r, path).stream().map(rn -> rn.asResource()).findAny();
+		Iterator<RDFNode> types = TYPE_PATH.iterator(r);
+		if (types.hasNext())
+			return Optional.of(types.next().asResource());
+		return Optional.empty();
 	}
 
 }
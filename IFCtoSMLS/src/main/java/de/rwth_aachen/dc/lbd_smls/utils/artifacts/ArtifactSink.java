@@ -0,0 +1,74 @@
+package de.rwth_aachen.dc.lbd_smls.utils.artifacts;
+
+import org.apache.jena.rdf.model.Model;
+
+/*
+ *  Copyright (c) 2020 Jyrki Oraskari (Jyrki.Oraskari@gmail.f)
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+/**
+ * A destination for the Turtle dumps that the converter produces next to the
+ * input file (the intermediate ifcOWL model and the resulting BOT+SMLS model).
+ * 
+ * The REST interface does not need the files at all, the command line use
+ * may want them either synchronously or written in the background.
+ */
+public interface ArtifactSink {
+
+	public enum Mode {
+		/** Nothing is written */
+		NONE,
+		/** The model is written as Turtle on the calling thread */
+		SYNCHRONOUS,
+		/** The model is written as gzipped Turtle on a separate thread */
+		BACKGROUND
+	}
+
+	/**
+	 * Writes the model to the target file (or not, depending on the mode)
+	 * 
+	 * @param m           an Apache Jena model
+	 * @param target_file absolute path name for an output file
+	 */
+	void write(Model m, String target_file);
+
+	/**
+	 * Like write, for a model that is not modified before flush() returns. A
+	 * background sink writes it as it is, without copying a snapshot first.
+	 * 
+	 * @param m           an Apache Jena model
+	 * @param target_file absolute path name for an output file
+	 */
+	default void writeFinal(Model m, String target_file) {
+		write(m, target_file);
+	}
+
+	/**
+	 * Waits until all the pending writes of this sink are done.
+	 */
+	default void flush() {
+	}
+
+	public static ArtifactSink create(Mode mode) {
+		switch (mode) {
+		case NONE:
+			return NoArtifactSink.INSTANCE;
+		case BACKGROUND:
+			return new BackgroundArtifactSink();
+		default:
+			return new SynchronousArtifactSink();
+		}
+	}
+}
@@ -0,0 +1,114 @@
+package de.rwth_aachen.dc.lbd_smls.utils.artifacts;
+
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPOutputStream;
+
+import org.apache.jena.rdf.model.Model;
+import org.apache.jena.rdf.model.ModelFactory;
+import org.apache.jena.riot.Lang;
+import org.apache.jena.riot.RDFDataMgr;
+
+/*
+ *  Copyright (c) 2020 Jyrki Oraskari (Jyrki.Oraskari@gmail.f)
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+/**
+ * Writes the models as gzipped Turtle files (target_file + ".gz") on a
+ * separate writer thread so that the conversion does not wait for the disk.
+ * 
+ * A model that may still change is copied into a snapshot model on the
+ * calling thread before write returns. That is an in-memory copy and a lot
+ * faster than the serialization itself. A model given to writeFinal is written
+ * as it is.
+ * 
+ * The pending writes are finished when the JVM shuts down.
+ */
+public class BackgroundArtifactSink implements ArtifactSink {
+	private static final long DRAIN_TIMEOUT_MINUTES = 10;
+
+	// One writer for all the conversions: the disk is the bottleneck anyway
+	private static final ExecutorService writer = Executors.newSingleThreadExecutor(r -> {
+		Thread t = new Thread(r, "ifc2lbd-artifact-writer");
+		t.setDaemon(true);
+		return t;
+	});
+
+	static {
+		Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+			writer.shutdown();
+			try {
+				if (!writer.awaitTermination(DRAIN_TIMEOUT_MINUTES, TimeUnit.MINUTES))
+					System.err.println("Artifact writes not finished at exit");
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+		}, "ifc2lbd-artifact-drain"));
+	}
+
+	private final List<Future<?>> pending = new CopyOnWriteArrayList<>();
+
+	@Override
+	public void write(Model m, String target_file) {
+		final Model snapshot = ModelFactory.createDefaultModel();
+		snapshot.setNsPrefixes(m.getNsPrefixMap());
+		snapshot.add(m);
+		submit(snapshot, target_file, true);
+	}
+
+	@Override
+	public void writeFinal(Model m, String target_file) {
+		submit(m, target_file, false);
+	}
+
+	private void submit(Model m, String target_file, boolean close) {
+		pending.add(writer.submit(() -> {
+			try (OutputStream out = new GZIPOutputStream(
+					new BufferedOutputStream(new FileOutputStream(new File(target_file + ".gz"))))) {
+				RDFDataMgr.write(out, m, Lang.TURTLE);
+			} catch (IOException e) {
+				e.printStackTrace();
+			} finally {
+				if (close)
+					m.close();
+			}
+		}));
+	}
+
+	@Override
+	public void flush() {
+		for (Future<?> f : pending) {
+			try {
+				f.get();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				return;
+			} catch (ExecutionException e) {
+				e.printStackTrace();
+			}
+			pending.remove(f);
+		}
+	}
+}
@@ -0,0 +1,34 @@
+package de.rwth_aachen.dc.lbd_smls.utils.artifacts;
+
+import org.apache.jena.rdf.model.Model;
+
+/*
+ *  Copyright (c) 2020 Jyrki Oraskari (Jyrki.Oraskari@gmail.f)
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+/**
+ * Drops the artifacts. Used by the REST interface, where only the returned
+ * model is needed.
+ */
+public class NoArtifactSink implements ArtifactSink {
+	public static final NoArtifactSink INSTANCE = new NoArtifactSink();
+
+	private NoArtifactSink() {
+	}
+
+	@Override
+	public void write(Model m, String target_file) {
+	}
+}
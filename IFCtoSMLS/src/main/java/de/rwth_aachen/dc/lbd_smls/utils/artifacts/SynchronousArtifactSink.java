@@ -0,0 +1,52 @@
+package de.rwth_aachen.dc.lbd_smls.utils.artifacts;
+
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.nio.charset.Charset;
+
+import org.apache.jena.rdf.model.Model;
+
+/*
+ *  Copyright (c) 2020 Jyrki Oraskari (Jyrki.Oraskari@gmail.f)
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+/**
+ * Writes the model as an uncompressed Turtle file on the calling thread. This
+ * is the original behavior of the converter.
+ */
+public class SynchronousArtifactSink implements ArtifactSink {
+
+	@Override
+	public void write(Model m, String target_file) {
+		OutputStreamWriter fo = null;
+		try {
+			fo = new OutputStreamWriter(new FileOutputStream(new File(target_file)),
+					Charset.forName("UTF-8").newEncoder());
+
+			m.write(fo, "TTL");
+		} catch (FileNotFoundException e) {
+			e.printStackTrace();
+		} finally {
+			if (fo != null)
+				try {
+					fo.close();
+				} catch (IOException e) {
+				}
+		}
+	}
+}
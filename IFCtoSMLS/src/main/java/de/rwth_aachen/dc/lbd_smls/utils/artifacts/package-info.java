@@ -0,0 +1,4 @@
+/**
+ * Sinks for the intermediate and result RDF dumps of a conversion
+ */
+package de.rwth_aachen.dc.lbd_smls.utils.artifacts;
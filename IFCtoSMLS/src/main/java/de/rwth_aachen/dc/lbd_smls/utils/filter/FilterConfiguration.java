@@ -0,0 +1,85 @@
+package de.rwth_aachen.dc.lbd_smls.utils.filter;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+
+/*
+ *  Copyright (c) 2020 Jyrki Oraskari (Jyrki.Oraskari@gmail.f)
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+/**
+ * The exclusion rules of the ifcOWL triple filter. A triple is dropped when
+ * its subject or its object is an instance URI (uriBase + local name) whose
+ * local name starts with one of the excluded prefixes. As in the IfcSpfReader
+ * output the local names are of the form IfcFace_123, the prefix "IfcFace" also
+ * matches IfcFaceBound_124 and IfcFaceOuterBound_125.
+ */
+public final class FilterConfiguration {
+	/**
+	 * The geometry and bookkeeping entities that are not needed for the LBD
+	 * output.
+	 */
+	public static final List<String> DEFAULT_EXCLUDED_PREFIXES = Collections.unmodifiableList(Arrays.asList(
+			"IfcFace", "IfcPolyLoop", "IfcCartesianPoint", "IfcOwnerHistory", "IfcRelAssociatesMaterial",
+			"IfcExtrudedAreaSolid", "IfcCompositeCurve", "IfcSurfaceStyleRendering", "IfcStyledItem",
+			"IfcShapeRepresentation"));
+
+	private static final FilterConfiguration DEFAULT = new FilterConfiguration(DEFAULT_EXCLUDED_PREFIXES);
+	private static final FilterConfiguration NONE = new FilterConfiguration(Collections.emptyList());
+
+	private final List<String> excluded_prefixes;
+	private final PrefixTrie trie;
+
+	public FilterConfiguration(Collection<String> excluded_prefixes) {
+		this.excluded_prefixes = Collections.unmodifiableList(new ArrayList<>(excluded_prefixes));
+		this.trie = new PrefixTrie(this.excluded_prefixes);
+	}
+
+	public static FilterConfiguration defaults() {
+		return DEFAULT;
+	}
+
+	/**
+	 * @return a configuration that keeps every triple
+	 */
+	public static FilterConfiguration none() {
+		return NONE;
+	}
+
+	/**
+	 * @param more_prefixes additional local name prefixes to exclude
+	 * @return a new configuration with the current and the additional prefixes
+	 */
+	public FilterConfiguration extend(String... more_prefixes) {
+		List<String> all = new ArrayList<>(excluded_prefixes);
+		all.addAll(Arrays.asList(more_prefixes));
+		return new FilterConfiguration(all);
+	}
+
+	public List<String> getExcludedPrefixes() {
+		return excluded_prefixes;
+	}
+
+	public boolean isEmpty() {
+		return excluded_prefixes.isEmpty();
+	}
+
+	PrefixTrie getTrie() {
+		return trie;
+	}
+}
@@ -0,0 +1,71 @@
+package de.rwth_aachen.dc.lbd_smls.utils.filter;
+
+import org.apache.jena.graph.Node;
+import org.apache.jena.graph.Triple;
+import org.apache.jena.riot.system.StreamRDF;
+import org.apache.jena.riot.system.StreamRDFWrapper;
+
+/*
+ *  Copyright (c) 2020 Jyrki Oraskari (Jyrki.Oraskari@gmail.f)
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+/**
+ * A RIOT stream stage that drops the parsed triples matched by a
+ * {@link FilterConfiguration} and passes the rest to the wrapped stream.
+ * Since the parser has already handled the Turtle syntax, multi-line literals
+ * and abbreviations need no special care here.
+ */
+public class FilteringStreamRDF extends StreamRDFWrapper {
+	private final String uriBase;
+	private final PrefixTrie trie;
+	private long accepted = 0;
+	private long rejected = 0;
+
+	/**
+	 * @param destination   the stream that receives the accepted triples
+	 * @param uriBase       the namespace of the instance URIs
+	 * @param configuration the exclusion rules
+	 */
+	public FilteringStreamRDF(StreamRDF destination, String uriBase, FilterConfiguration configuration) {
+		super(destination);
+		this.uriBase = uriBase;
+		this.trie = configuration.getTrie();
+	}
+
+	@Override
+	public void triple(Triple triple) {
+		if (isExcluded(triple.getSubject()) || isExcluded(triple.getObject())) {
+			rejected++;
+			return;
+		}
+		accepted++;
+		super.triple(triple);
+	}
+
+	private boolean isExcluded(Node n) {
+		if (!n.isURI())
+			return false;
+		String uri = n.getURI();
+		return uri.startsWith(uriBase) && trie.matchesPrefix(uri, uriBase.length());
+	}
+
+	public long getAcceptedCount() {
+		return accepted;
+	}
+
+	public long getRejectedCount() {
+		return rejected;
+	}
+}
@@ -0,0 +1,90 @@
+package de.rwth_aachen.dc.lbd_smls.utils.filter;
+
+import java.util.Arrays;
+import java.util.Collection;
+
+/*
+ *  Copyright (c) 2020 Jyrki Oraskari (Jyrki.Oraskari@gmail.f)
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+/**
+ * An immutable character trie that answers whether a string, read from a
+ * given offset, starts with any of the stored prefixes. The lookup stops at
+ * the first stored prefix, so the cost is bounded by the longest prefix and
+ * not by the length of the tested string.
+ */
+public final class PrefixTrie {
+	private static final class TrieNode {
+		private char[] keys = new char[0];
+		private TrieNode[] children = new TrieNode[0];
+		private boolean terminal = false;
+
+		private TrieNode child(char c) {
+			int i = Arrays.binarySearch(keys, c);
+			return i < 0 ? null : children[i];
+		}
+
+		private TrieNode addChild(char c) {
+			int i = Arrays.binarySearch(keys, c);
+			if (i >= 0)
+				return children[i];
+			int at = -(i + 1);
+			char[] k = new char[keys.length + 1];
+			TrieNode[] ch = new TrieNode[children.length + 1];
+			System.arraycopy(keys, 0, k, 0, at);
+			System.arraycopy(children, 0, ch, 0, at);
+			System.arraycopy(keys, at, k, at + 1, keys.length - at);
+			System.arraycopy(children, at, ch, at + 1, children.length - at);
+			TrieNode n = new TrieNode();
+			k[at] = c;
+			ch[at] = n;
+			keys = k;
+			children = ch;
+			return n;
+		}
+	}
+
+	private final TrieNode root = new TrieNode();
+	private final boolean empty;
+
+	public PrefixTrie(Collection<String> prefixes) {
+		for (String prefix : prefixes) {
+			TrieNode n = root;
+			for (int i = 0; i < prefix.length(); i++)
+				n = n.addChild(prefix.charAt(i));
+			n.terminal = true;
+		}
+		this.empty = prefixes.isEmpty();
+	}
+
+	/**
+	 * @param s      the tested string
+	 * @param offset the index in s where the matching starts
+	 * @return true if s.substring(offset) starts with one of the prefixes
+	 */
+	public boolean matchesPrefix(String s, int offset) {
+		if (empty)
+			return false;
+		TrieNode n = root;
+		for (int i = offset; i < s.length(); i++) {
+			if (n.terminal)
+				return true;
+			n = n.child(s.charAt(i));
+			if (n == null)
+				return false;
+		}
+		return n.terminal;
+	}
+}
@@ -0,0 +1,4 @@
+/**
+ *  Triple level filtering of the ifcOWL conversion output
+ */
+package de.rwth_aachen.dc.lbd_smls.utils.filter;
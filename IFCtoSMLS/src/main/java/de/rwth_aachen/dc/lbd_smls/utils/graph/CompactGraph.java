@@ -0,0 +1,220 @@
+package de.rwth_aachen.dc.lbd_smls.utils.graph;
+
+import java.util.Arrays;
+import java.util.NoSuchElementException;
+
+import org.apache.jena.graph.Capabilities;
+import org.apache.jena.graph.Graph;
+import org.apache.jena.graph.Node;
+import org.apache.jena.graph.Triple;
+import org.apache.jena.graph.impl.AllCapabilities;
+import org.apache.jena.graph.impl.GraphBase;
+import org.apache.jena.util.iterator.ExtendedIterator;
+import org.apache.jena.util.iterator.NiceIterator;
+
+/*
+ *  Copyright (c) 2020 Jyrki Oraskari (Jyrki.Oraskari@gmail.f)
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+/**
+ * A frozen, read-only copy of a graph. The nodes are dictionary encoded as
+ * ints and the triples are kept as sorted int arrays in SPO, POS and OSP order
+ * with CSR offsets. This takes a fraction of the memory of GraphMem, which
+ * keeps three hash indexes of Triple objects.
+ * <P>
+ * find() matches the nodes with Node.equals. Unlike GraphMem, a concrete
+ * literal does not match an other lexical form of the same value (e.g. "1" and
+ * "01" as xsd:integer).
+ */
+public final class CompactGraph extends GraphBase {
+	private static final Capabilities READ_ONLY = new AllCapabilities() {
+		@Override
+		public boolean addAllowed() {
+			return false;
+		}
+
+		@Override
+		public boolean addAllowed(boolean every) {
+			return false;
+		}
+
+		@Override
+		public boolean deleteAllowed() {
+			return false;
+		}
+
+		@Override
+		public boolean deleteAllowed(boolean every) {
+			return false;
+		}
+
+		@Override
+		public boolean iteratorRemoveAllowed() {
+			return false;
+		}
+	};
+
+	private final NodeDictionary dictionary;
+	private final int size;
+	private final TripleIndex spo;
+	private final TripleIndex pos;
+	private final TripleIndex osp;
+
+	private CompactGraph(NodeDictionary dictionary, int[][] columns, int size) {
+		this.dictionary = dictionary;
+		this.size = size;
+		int n = dictionary.size();
+		this.spo = new TripleIndex(columns, size, n, TripleIndex.S, TripleIndex.P, TripleIndex.O);
+		this.pos = new TripleIndex(columns, size, n, TripleIndex.P, TripleIndex.O, TripleIndex.S);
+		this.osp = new TripleIndex(columns, size, n, TripleIndex.O, TripleIndex.S, TripleIndex.P);
+	}
+
+	/**
+	 * Copies the triples and the prefixes of a graph.
+	 * 
+	 * @param source the graph to be copied. It is not changed.
+	 * @return the frozen copy
+	 */
+	public static CompactGraph freeze(Graph source) {
+		NodeDictionary dictionary = new NodeDictionary();
+		int capacity = Math.max(16, source.size());
+		int[] s = new int[capacity];
+		int[] p = new int[capacity];
+		int[] o = new int[capacity];
+		int count = 0;
+		ExtendedIterator<Triple> it = source.find(Node.ANY, Node.ANY, Node.ANY);
+		try {
+			while (it.hasNext()) {
+				Triple t = it.next();
+				if (count == s.length) {
+					s = Arrays.copyOf(s, count * 2);
+					p = Arrays.copyOf(p, count * 2);
+					o = Arrays.copyOf(o, count * 2);
+				}
+				s[count] = dictionary.encode(t.getSubject());
+				p[count] = dictionary.encode(t.getPredicate());
+				o[count] = dictionary.encode(t.getObject());
+				count++;
+			}
+		} finally {
+			it.close();
+		}
+		dictionary.trim();
+		CompactGraph g = new CompactGraph(dictionary, new int[][] { s, p, o }, count);
+		g.getPrefixMapping().setNsPrefixes(source.getPrefixMapping());
+		return g;
+	}
+
+	@Override
+	public Capabilities getCapabilities() {
+		return READ_ONLY;
+	}
+
+	@Override
+	protected int graphBaseSize() {
+		return size;
+	}
+
+	@Override
+	protected ExtendedIterator<Triple> graphBaseFind(Triple m) {
+		Node ms = m.getMatchSubject();
+		Node mp = m.getMatchPredicate();
+		Node mo = m.getMatchObject();
+		int s = -1, p = -1, o = -1;
+		if (ms != null) {
+			s = dictionary.lookup(ms);
+			if (s < 0)
+				return NiceIterator.emptyIterator();
+		}
+		if (mp != null) {
+			p = dictionary.lookup(mp);
+			if (p < 0)
+				return NiceIterator.emptyIterator();
+		}
+		if (mo != null) {
+			o = dictionary.lookup(mo);
+			if (o < 0)
+				return NiceIterator.emptyIterator();
+		}
+
+		if (s >= 0) {
+			if (p >= 0)
+				return find(spo, s, p, o);
+			if (o >= 0)
+				return find(osp, o, s, -1);
+			return find(spo, s, -1, -1);
+		}
+		if (p >= 0)
+			return find(pos, p, o, -1);
+		if (o >= 0)
+			return find(osp, o, -1, -1);
+		return new RowIterator(spo, 0, 0, size);
+	}
+
+	private ExtendedIterator<Triple> find(TripleIndex index, int a, int b, int c) {
+		int from = index.offsets[a];
+		int to = index.offsets[a + 1];
+		if (b >= 0) {
+			int lo = TripleIndex.lowerBound(index.second, from, to, b);
+			to = TripleIndex.upperBound(index.second, lo, to, b);
+			from = lo;
+			if (c >= 0) {
+				lo = TripleIndex.lowerBound(index.third, from, to, c);
+				to = TripleIndex.upperBound(index.third, lo, to, c);
+				from = lo;
+			}
+		}
+		if (from >= to)
+			return NiceIterator.emptyIterator();
+		return new RowIterator(index, a, from, to);
+	}
+
+	/**
+	 * Iterates the rows from..to-1 of an index. The first key is advanced along
+	 * the offsets, so the same iterator serves single key ranges and full scans.
+	 */
+	private final class RowIterator extends NiceIterator<Triple> {
+		private final TripleIndex index;
+		private final int to;
+		private int a;
+		private int row;
+
+		RowIterator(TripleIndex index, int a, int from, int to) {
+			this.index = index;
+			this.a = a;
+			this.row = from;
+			this.to = to;
+		}
+
+		@Override
+		public boolean hasNext() {
+			return row < to;
+		}
+
+		@Override
+		public Triple next() {
+			if (row >= to)
+				throw new NoSuchElementException();
+			while (index.offsets[a + 1] <= row)
+				a++;
+			Node[] spo_nodes = new Node[3];
+			spo_nodes[index.first_slot] = dictionary.decode(a);
+			spo_nodes[index.second_slot] = dictionary.decode(index.second[row]);
+			spo_nodes[index.third_slot] = dictionary.decode(index.third[row]);
+			row++;
+			return Triple.create(spo_nodes[0], spo_nodes[1], spo_nodes[2]);
+		}
+	}
+}
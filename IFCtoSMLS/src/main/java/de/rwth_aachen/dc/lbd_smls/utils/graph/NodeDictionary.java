@@ -0,0 +1,92 @@
+package de.rwth_aachen.dc.lbd_smls.utils.graph;
+
+import java.util.Arrays;
+
+import org.apache.jena.graph.Node;
+
+/*
+ *  Copyright (c) 2020 Jyrki Oraskari (Jyrki.Oraskari@gmail.f)
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+/**
+ * Maps Jena nodes to dense int ids 0..size-1 and back. The lookup table is
+ * an open addressing int array, so there are no boxed keys or entry objects.
+ */
+final class NodeDictionary {
+	private Node[] nodes = new Node[1024];
+	private int[] table = new int[2048]; // id + 1, 0 is empty
+	private int size = 0;
+
+	int encode(Node n) {
+		int slot = slot(n);
+		if (table[slot] != 0)
+			return table[slot] - 1;
+		if (size == nodes.length)
+			nodes = Arrays.copyOf(nodes, size * 2);
+		nodes[size] = n;
+		table[slot] = ++size;
+		if (size * 2 > table.length)
+			rehash();
+		return size - 1;
+	}
+
+	/**
+	 * @return the id of the node or -1 if the node is not in the dictionary
+	 */
+	int lookup(Node n) {
+		int slot = slot(n);
+		return table[slot] - 1;
+	}
+
+	Node decode(int id) {
+		return nodes[id];
+	}
+
+	int size() {
+		return size;
+	}
+
+	/**
+	 * Drops the spare capacity after the graph is built.
+	 */
+	void trim() {
+		nodes = Arrays.copyOf(nodes, size);
+	}
+
+	private int slot(Node n) {
+		int mask = table.length - 1;
+		int i = mix(n.hashCode()) & mask;
+		while (table[i] != 0 && !nodes[table[i] - 1].equals(n))
+			i = (i + 1) & mask;
+		return i;
+	}
+
+	private void rehash() {
+		int[] new_table = new int[table.length * 2];
+		int mask = new_table.length - 1;
+		for (int id = 0; id < size; id++) {
+			int i = mix(nodes[id].hashCode()) & mask;
+			while (new_table[i] != 0)
+				i = (i + 1) & mask;
+			new_table[i] = id + 1;
+		}
+		table = new_table;
+	}
+
+	private static int mix(int h) {
+		h *= 0x9E3779B9;
+		return h ^ (h >>> 16);
+	}
+}
@@ -0,0 +1,117 @@
+package de.rwth_aachen.dc.lbd_smls.utils.graph;
+
+import java.util.Arrays;
+
+/*
+ *  Copyright (c) 2020 Jyrki Oraskari (Jyrki.Oraskari@gmail.f)
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+/**
+ * One sort order of the triples (for example POS). The triples are sorted by
+ * the first, second and third key. The rows of a first key value k are
+ * offsets[k]..offsets[k+1]-1 (CSR layout), and inside them the second and
+ * third keys are in ascending order, so they can be binary searched.
+ */
+final class TripleIndex {
+	static final int S = 0;
+	static final int P = 1;
+	static final int O = 2;
+
+	final int first_slot;
+	final int second_slot;
+	final int third_slot;
+	final int[] offsets;
+	final int[] second;
+	final int[] third;
+
+	/**
+	 * @param columns    the subject, predicate and object id columns
+	 * @param node_count the size of the dictionary
+	 */
+	TripleIndex(int[][] columns, int triple_count, int node_count, int first_slot, int second_slot,
+			int third_slot) {
+		this.first_slot = first_slot;
+		this.second_slot = second_slot;
+		this.third_slot = third_slot;
+
+		// LSD radix sort: stable counting sorts by the third, second and first key
+		int[] perm = new int[triple_count];
+		for (int i = 0; i < triple_count; i++)
+			perm[i] = i;
+		int[] buffer = new int[triple_count];
+		int[] count = new int[node_count + 1];
+		countingSort(perm, buffer, columns[third_slot], count);
+		countingSort(buffer, perm, columns[second_slot], count);
+		countingSort(perm, buffer, columns[first_slot], count);
+		perm = buffer;
+
+		int[] a = columns[first_slot];
+		int[] b = columns[second_slot];
+		int[] c = columns[third_slot];
+		this.offsets = new int[node_count + 1];
+		this.second = new int[triple_count];
+		this.third = new int[triple_count];
+		for (int i = 0; i < triple_count; i++) {
+			int t = perm[i];
+			offsets[a[t] + 1]++;
+			second[i] = b[t];
+			third[i] = c[t];
+		}
+		for (int k = 0; k < node_count; k++)
+			offsets[k + 1] += offsets[k];
+	}
+
+	private static void countingSort(int[] in, int[] out, int[] key, int[] count) {
+		Arrays.fill(count, 0);
+		for (int t : in)
+			count[key[t]]++;
+		int sum = 0;
+		for (int k = 0; k < count.length; k++) {
+			int c = count[k];
+			count[k] = sum;
+			sum += c;
+		}
+		for (int t : in)
+			out[count[key[t]]++] = t;
+	}
+
+	/**
+	 * @return the first row with keys[row] >= value in from..to-1, or to
+	 */
+	static int lowerBound(int[] keys, int from, int to, int value) {
+		while (from < to) {
+			int mid = (from + to) >>> 1;
+			if (keys[mid] < value)
+				from = mid + 1;
+			else
+				to = mid;
+		}
+		return from;
+	}
+
+	/**
+	 * @return the first row with keys[row] > value in from..to-1, or to
+	 */
+	static int upperBound(int[] keys, int from, int to, int value) {
+		while (from < to) {
+			int mid = (from + to) >>> 1;
+			if (keys[mid] <= value)
+				from = mid + 1;
+			else
+				to = mid;
+		}
+		return from;
+	}
+}
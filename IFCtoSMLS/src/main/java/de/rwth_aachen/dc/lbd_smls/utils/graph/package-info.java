@@ -0,0 +1,4 @@
+/**
+ *  Read-only compact in-memory graphs
+ */
+package de.rwth_aachen.dc.lbd_smls.utils.graph;
@@ -64,6 +64,11 @@ public class InvRDFStep extends RDFStep {
 		return ret;
     }
 	
+	@Override
+	public boolean isInverse() {
+		return true;
+	}
+
 	@Override
 	public String toString() {		
 		return "!"+property.getURI();
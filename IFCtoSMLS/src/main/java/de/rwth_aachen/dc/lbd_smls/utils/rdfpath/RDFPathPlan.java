@@ -0,0 +1,198 @@
+package de.rwth_aachen.dc.lbd_smls.utils.rdfpath;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+import org.apache.jena.graph.Graph;
+import org.apache.jena.graph.Node;
+import org.apache.jena.graph.Triple;
+import org.apache.jena.rdf.model.Model;
+import org.apache.jena.rdf.model.RDFNode;
+import org.apache.jena.rdf.model.Resource;
+import org.apache.jena.util.iterator.ExtendedIterator;
+
+/*
+ *  Copyright (c) 2020 Jyrki Oraskari (Jyrki.Oraskari@gmail.f)
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+/**
+ * An RDF path compiled into an immutable evaluation plan. The plan is
+ * evaluated level by level on the graph of the start node: the frontier of
+ * each step is expanded into a second buffer and the buffers are swapped.
+ * The last step is expanded lazily while the results are iterated.
+ * <P>
+ * Without dedup the results are the same, in the same order and with the
+ * same duplicates, as the recursive RDFUtils.pathQuery evaluation. With
+ * {@link #distinct()} each node is visited once per level and returned once.
+ * A plan can be shared by threads.
+ */
+public final class RDFPathPlan {
+	private final RDFStep[] steps;
+	private final Node[] predicates;
+	private final boolean[] inverse;
+	// Steps of other RDFStep subclasses are evaluated with RDFStep.next
+	private final boolean[] custom;
+	private final boolean distinct;
+
+	private RDFPathPlan(RDFStep[] steps, boolean distinct) {
+		this.steps = steps;
+		this.distinct = distinct;
+		this.predicates = new Node[steps.length];
+		this.inverse = new boolean[steps.length];
+		this.custom = new boolean[steps.length];
+		for (int i = 0; i < steps.length; i++) {
+			Class<?> c = steps[i].getClass();
+			this.custom[i] = c != RDFStep.class && c != InvRDFStep.class;
+			this.predicates[i] = steps[i].getProperty().asNode();
+			this.inverse[i] = steps[i].isInverse();
+		}
+	}
+
+	public static RDFPathPlan compile(RDFStep... path) {
+		return new RDFPathPlan(path.clone(), false);
+	}
+
+	/**
+	 * @return the same plan with visited-set dedup
+	 */
+	public RDFPathPlan distinct() {
+		return distinct ? this : new RDFPathPlan(steps, true);
+	}
+
+	public int length() {
+		return steps.length;
+	}
+
+	/**
+	 * @param start the starting point
+	 * @return the matching nodes in a new, modifiable list
+	 */
+	public List<RDFNode> list(Resource start) {
+		List<RDFNode> ret = new ArrayList<>();
+		iterator(start).forEachRemaining(ret::add);
+		return ret;
+	}
+
+	/**
+	 * @param start the starting point
+	 * @return a lazy iterator over the matching nodes
+	 */
+	public Iterator<RDFNode> iterator(Resource start) {
+		Model m = start.getModel();
+		if (m == null || steps.length == 0)
+			return Collections.emptyIterator();
+		Graph g = m.getGraph();
+		List<Node> frontier = new ArrayList<>();
+		List<Node> next = new ArrayList<>();
+		Set<Node> visited = distinct ? new HashSet<>() : null;
+		frontier.add(start.asNode());
+		for (int i = 0; i < steps.length - 1; i++) {
+			next.clear();
+			if (visited != null)
+				visited.clear();
+			for (Node n : frontier) {
+				if (n.isLiteral())
+					continue;
+				expand(m, g, i, n, next, visited);
+			}
+			if (next.isEmpty())
+				return Collections.emptyIterator();
+			List<Node> t = frontier;
+			frontier = next;
+			next = t;
+		}
+		if (visited != null)
+			visited.clear();
+		return new LastStepIterator(m, g, frontier, visited);
+	}
+
+	private void expand(Model m, Graph g, int step, Node n, List<Node> out, Set<Node> visited) {
+		if (custom[step]) {
+			for (RDFNode rn : steps[step].next(m.wrapAsResource(n))) {
+				Node x = rn.asNode();
+				if (visited == null || visited.add(x))
+					out.add(x);
+			}
+			return;
+		}
+		ExtendedIterator<Triple> it = inverse[step] ? g.find(Node.ANY, predicates[step], n)
+				: g.find(n, predicates[step], Node.ANY);
+		try {
+			while (it.hasNext()) {
+				Triple t = it.next();
+				Node x = inverse[step] ? t.getSubject() : t.getObject();
+				if (visited == null || visited.add(x))
+					out.add(x);
+			}
+		} finally {
+			it.close();
+		}
+	}
+
+	/**
+	 * Expands the last step one frontier node at a time.
+	 */
+	private final class LastStepIterator implements Iterator<RDFNode> {
+		private final Model m;
+		private final Graph g;
+		private final List<Node> frontier;
+		private final Set<Node> returned;
+		private final int step = steps.length - 1;
+		private final List<Node> buffer = new ArrayList<>();
+		private int frontier_index = 0;
+		private int buffer_index = 0;
+
+		LastStepIterator(Model m, Graph g, List<Node> frontier, Set<Node> returned) {
+			this.m = m;
+			this.g = g;
+			this.frontier = frontier;
+			this.returned = returned;
+		}
+
+		@Override
+		public boolean hasNext() {
+			while (buffer_index >= buffer.size()) {
+				if (frontier_index >= frontier.size())
+					return false;
+				buffer.clear();
+				buffer_index = 0;
+				Node n = frontier.get(frontier_index++);
+				if (!n.isLiteral())
+					expand(m, g, step, n, buffer, returned);
+			}
+			return true;
+		}
+
+		@Override
+		public RDFNode next() {
+			if (!hasNext())
+				throw new NoSuchElementException();
+			return m.asRDFNode(buffer.get(buffer_index++));
+		}
+	}
+
+	@Override
+	public String toString() {
+		StringBuilder sb = new StringBuilder();
+		for (RDFStep s : steps)
+			sb.append(s.toString()).append(" ");
+		return sb.toString().trim();
+	}
+}
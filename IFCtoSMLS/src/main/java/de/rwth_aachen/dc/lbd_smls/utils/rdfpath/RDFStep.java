@@ -56,6 +56,18 @@ public class RDFStep {
 		return ret;
     }
     
+    public Property getProperty() {
+		return property;
+	}
+
+	/**
+	 * @return true if the step follows the property from the object to the
+	 *         subject
+	 */
+	public boolean isInverse() {
+		return false;
+	}
+
     @Override
     public String toString() {    	
     	return property.getURI();
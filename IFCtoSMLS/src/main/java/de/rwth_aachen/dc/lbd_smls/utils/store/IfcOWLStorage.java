@@ -0,0 +1,88 @@
+package de.rwth_aachen.dc.lbd_smls.utils.store;
+
+/*
+ *  Copyright (c) 2020 Jyrki Oraskari (Jyrki.Oraskari@gmail.f)
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+/**
+ * Chooses where the converted ifcOWL graph is kept: in the heap or in a
+ * temporary TDB2 dataset on the disk. In the automatic mode the size of the
+ * IfcSpfReader Turtle output is used to estimate the heap need of an
+ * in-memory graph. If the estimate is more than the given fraction of the
+ * maximum heap, the disk is used.
+ */
+public final class IfcOWLStorage {
+	public enum Mode {
+		IN_MEMORY, DISK, AUTOMATIC
+	}
+
+	/**
+	 * Rough heap bytes of a Jena memory graph per byte of the Turtle input
+	 */
+	public static final double DEFAULT_HEAP_BYTES_PER_TURTLE_BYTE = 4.0;
+	public static final double DEFAULT_HEAP_FRACTION = 0.5;
+
+	private final Mode mode;
+	private final double heap_fraction;
+	private final double heap_bytes_per_turtle_byte;
+
+	private IfcOWLStorage(Mode mode, double heap_fraction, double heap_bytes_per_turtle_byte) {
+		this.mode = mode;
+		this.heap_fraction = heap_fraction;
+		this.heap_bytes_per_turtle_byte = heap_bytes_per_turtle_byte;
+	}
+
+	public static IfcOWLStorage inMemory() {
+		return new IfcOWLStorage(Mode.IN_MEMORY, DEFAULT_HEAP_FRACTION, DEFAULT_HEAP_BYTES_PER_TURTLE_BYTE);
+	}
+
+	public static IfcOWLStorage disk() {
+		return new IfcOWLStorage(Mode.DISK, DEFAULT_HEAP_FRACTION, DEFAULT_HEAP_BYTES_PER_TURTLE_BYTE);
+	}
+
+	public static IfcOWLStorage automatic() {
+		return new IfcOWLStorage(Mode.AUTOMATIC, DEFAULT_HEAP_FRACTION, DEFAULT_HEAP_BYTES_PER_TURTLE_BYTE);
+	}
+
+	/**
+	 * @param heap_fraction              the share of Runtime.maxMemory() the
+	 *                                   in-memory graph may use (0..1)
+	 * @param heap_bytes_per_turtle_byte the estimated heap need per Turtle byte
+	 * @return an automatic storage selection with the given threshold
+	 */
+	public static IfcOWLStorage automatic(double heap_fraction, double heap_bytes_per_turtle_byte) {
+		return new IfcOWLStorage(Mode.AUTOMATIC, heap_fraction, heap_bytes_per_turtle_byte);
+	}
+
+	public Mode getMode() {
+		return mode;
+	}
+
+	/**
+	 * @param turtle_bytes the size of the ifcOWL Turtle file
+	 * @return true if the graph should be loaded into a TDB2 dataset
+	 */
+	public boolean useDisk(long turtle_bytes) {
+		switch (mode) {
+		case DISK:
+			return true;
+		case IN_MEMORY:
+			return false;
+		default:
+			double estimate = turtle_bytes * heap_bytes_per_turtle_byte;
+			return estimate > Runtime.getRuntime().maxMemory() * heap_fraction;
+		}
+	}
+}
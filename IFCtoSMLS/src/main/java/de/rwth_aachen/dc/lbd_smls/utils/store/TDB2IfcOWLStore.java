@@ -0,0 +1,123 @@
+package de.rwth_aachen.dc.lbd_smls.utils.store;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+
+import org.apache.jena.query.Dataset;
+import org.apache.jena.rdf.model.Model;
+import org.apache.jena.riot.Lang;
+import org.apache.jena.riot.RDFDataMgr;
+import org.apache.jena.riot.system.StreamRDF;
+import org.apache.jena.riot.system.StreamRDFWrapper;
+import org.apache.jena.system.Txn;
+import org.apache.jena.tdb2.TDB2Factory;
+import org.apache.jena.tdb2.loader.StreamRDFBatchSplit;
+import org.apache.jena.tdb2.sys.TDBInternal;
+
+import de.rwth_aachen.dc.lbd_smls.utils.filter.FilterConfiguration;
+import de.rwth_aachen.dc.lbd_smls.utils.filter.FilteringStreamRDF;
+
+/*
+ *  Copyright (c) 2020 Jyrki Oraskari (Jyrki.Oraskari@gmail.f)
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+/**
+ * A temporary TDB2 dataset for ifcOWL graphs that do not fit into the heap.
+ * The filtered triples are bulk loaded in one write transaction. Afterwards
+ * the default model must only be accessed inside transactions, see
+ * {@link #executeRead(Runnable)} and {@link #executeWrite(Runnable)}. Closing
+ * the store releases the dataset and deletes the directory.
+ */
+public class TDB2IfcOWLStore implements AutoCloseable {
+	private static final int LOADER_BATCH_SIZE = 100000;
+
+	private final Path directory;
+	private final Dataset dataset;
+
+	private TDB2IfcOWLStore(Path directory) {
+		this.directory = directory;
+		this.dataset = TDB2Factory.connectDataset(directory.toString());
+	}
+
+	/**
+	 * @param ttl_file      the IfcSpfReader output
+	 * @param uriBase       the namespace of the instance URIs
+	 * @param configuration the triples that are left out
+	 * @return the loaded store
+	 * @throws IOException if the temporary directory cannot be created
+	 */
+	public static TDB2IfcOWLStore load(File ttl_file, String uriBase, FilterConfiguration configuration)
+			throws IOException {
+		TDB2IfcOWLStore store = new TDB2IfcOWLStore(Files.createTempDirectory("ifcowl_tdb2"));
+		store.executeWrite(() -> {
+			Model m = store.getModel();
+			// The bulk loader stream does not keep the prefixes
+			StreamRDF loader = new StreamRDFWrapper(
+					new StreamRDFBatchSplit(TDBInternal.getDatasetGraphTDB(store.dataset), LOADER_BATCH_SIZE)) {
+				@Override
+				public void prefix(String prefix, String iri) {
+					m.setNsPrefix(prefix, iri);
+				}
+			};
+			FilteringStreamRDF filter = new FilteringStreamRDF(loader, uriBase, configuration);
+			RDFDataMgr.parse(filter, ttl_file.getAbsolutePath(), Lang.TTL);
+			System.out.println("ifcOWL triples loaded into TDB2: " + filter.getAcceptedCount() + " filtered out: "
+					+ filter.getRejectedCount());
+		});
+		return store;
+	}
+
+	/**
+	 * @return the default model of the dataset. Use it only inside transactions.
+	 */
+	public Model getModel() {
+		return dataset.getDefaultModel();
+	}
+
+	public Dataset getDataset() {
+		return dataset;
+	}
+
+	/**
+	 * Runs in a read transaction of the current thread. If the thread is already
+	 * in a transaction, that is used.
+	 */
+	public void executeRead(Runnable r) {
+		Txn.executeRead(dataset, r);
+	}
+
+	public <X> X calculateRead(Supplier<X> s) {
+		return Txn.calculateRead(dataset, s);
+	}
+
+	public void executeWrite(Runnable r) {
+		Txn.executeWrite(dataset, r);
+	}
+
+	@Override
+	public void close() {
+		TDBInternal.expel(dataset.asDatasetGraph());
+		try (Stream<Path> paths = Files.walk(directory)) {
+			paths.sorted(Comparator.reverseOrder()).map(Path::toFile).forEach(File::delete);
+		} catch (IOException e) {
+			e.printStackTrace();
+		}
+	}
+}
@@ -0,0 +1,4 @@
+/**
+ *  Storage options for the ifcOWL graph of a conversion
+ */
+package de.rwth_aachen.dc.lbd_smls.utils.store;